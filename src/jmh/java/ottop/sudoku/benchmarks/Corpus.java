@@ -0,0 +1,42 @@
+package ottop.sudoku.benchmarks;
+
+import ottop.sudoku.puzzle.ISudoku;
+import ottop.sudoku.puzzle.StandardSudoku;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+
+// The puzzle collections bundled as resources, loaded once per benchmark trial
+public class Corpus {
+
+    public static List<ISudoku> load(String name) throws IOException {
+        String resource;
+        switch (name) {
+            case "top95":
+                resource = "/top95.txt";
+                break;
+            case "hardest":
+                resource = "/HardestDatabase110626.txt";
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown corpus " + name);
+        }
+
+        List<ISudoku> puzzles = new ArrayList<>();
+        InputStream contentStream = Corpus.class.getResourceAsStream(resource);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(contentStream))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String data = line.split(",")[0];
+                if (data.length() == 81) {
+                    puzzles.add(new StandardSudoku(name + " " + (puzzles.size() + 1), data));
+                }
+            }
+        }
+        return puzzles;
+    }
+}
@@ -0,0 +1,98 @@
+package ottop.sudoku.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import ottop.sudoku.board.Coord;
+import ottop.sudoku.puzzle.ISudoku;
+import ottop.sudoku.solver.BruteForceSolver;
+import ottop.sudoku.solver.SolveStats;
+import ottop.sudoku.solver.SudokuSolver;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Whole-puzzle operations. Every operation takes the next puzzle of the corpus
+// (round robin), so the scores are puzzles per second.
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SolverBenchmark {
+
+    @Param({"top95", "hardest"})
+    public String corpus;
+
+    private List<ISudoku> puzzles;
+    private int next = 0;
+
+    @Setup(Level.Trial)
+    public void load() throws IOException {
+        puzzles = Corpus.load(corpus);
+    }
+
+    ISudoku nextPuzzle() {
+        ISudoku p = puzzles.get(next);
+        next = (next + 1) % puzzles.size();
+        return p;
+    }
+
+    // Solvers with their candidates calculated, so only finding the move is
+    // measured. Finding it runs the eliminators, after which the next call has
+    // nothing left to do, so every call needs a fresh solver. A batch of them is
+    // set up per iteration, which nextMove then times in one shot.
+    @State(Scope.Thread)
+    public static class PreparedSolvers {
+        static final int BATCH = 200;
+
+        final SudokuSolver[] solvers = new SudokuSolver[BATCH];
+        int next = 0;
+
+        @Setup(Level.Iteration)
+        public void prepare(SolverBenchmark benchmark) {
+            for (int i = 0; i < BATCH; i++) {
+                ISudoku p = benchmark.nextPuzzle().clone();
+                solvers[i] = new SudokuSolver(p).setSmartest();
+                solvers[i].getCandidatesAtCell(p.getAllCells()[0]);
+            }
+            next = 0;
+        }
+    }
+
+    // Includes copying the puzzle, solve() changes it
+    @Benchmark
+    public boolean solve() {
+        ISudoku p = nextPuzzle().clone();
+        return new SudokuSolver(p).setSmartest().solve();
+    }
+
+    @Benchmark
+    public boolean solveWithoutReasons() {
+        ISudoku p = nextPuzzle().clone();
+        return new SudokuSolver(p).setSmartest().setRecordEliminationReasons(false).solve();
+    }
+
+    // Milliseconds per batch of PreparedSolvers.BATCH moves
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 10, batchSize = PreparedSolvers.BATCH)
+    @Measurement(iterations = 20, batchSize = PreparedSolvers.BATCH)
+    public Map.Entry<Coord, String> nextMove(PreparedSolvers prepared) {
+        return prepared.solvers[prepared.next++].nextMove(new SolveStats());
+    }
+
+    @Benchmark
+    public int assessDifficulty() {
+        return SudokuSolver.assessDifficulty(nextPuzzle());
+    }
+
+    @Benchmark
+    public int[] bruteForce() {
+        ISudoku p = nextPuzzle();
+        return new BruteForceSolver(p).findSolution(p);
+    }
+}
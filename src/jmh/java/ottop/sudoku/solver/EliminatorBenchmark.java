@@ -0,0 +1,86 @@
+package ottop.sudoku.solver;
+
+import org.openjdk.jmh.annotations.*;
+import ottop.sudoku.benchmarks.Corpus;
+import ottop.sudoku.puzzle.ISudoku;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// One elimination pass of a single Eliminator, on the candidates left by basic
+// elimination of the next puzzle of the corpus. Lives in the solver package as
+// the eliminators can only be created from there.
+//
+// A pass changes the candidates, so every pass needs fresh ones. Setting those up
+// around each pass would cost more than the pass itself, so every iteration sets
+// up a batch of BATCH eliminators first and then times the whole batch in one
+// shot. Scores are milliseconds per BATCH passes.
+
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10, batchSize = EliminatorBenchmark.BATCH)
+@Measurement(iterations = 20, batchSize = EliminatorBenchmark.BATCH)
+@Fork(1)
+@State(Scope.Thread)
+public class EliminatorBenchmark {
+    public static final int BATCH = 1000;
+
+    @Param({"top95", "hardest"})
+    public String corpus;
+
+    @Param({"basic", "nakedGroups", "intersectionRadiation", "xWings", "frankenFish", "forcedChains"})
+    public String eliminator;
+
+    // Log elimination reasons, as the solver does by default
+    @Param({"true", "false"})
+    public boolean reasons;
+
+    private List<ISudoku> puzzles;
+    private int nextPuzzle = 0;
+    private final Eliminator[] batch = new Eliminator[BATCH];
+    private int next = 0;
+
+    @Setup(Level.Trial)
+    public void load() throws IOException {
+        puzzles = Corpus.load(corpus);
+    }
+
+    @Setup(Level.Iteration)
+    public void prepare() {
+        for (int i = 0; i < BATCH; i++) {
+            batch[i] = create(puzzles.get(nextPuzzle));
+            nextPuzzle = (nextPuzzle + 1) % puzzles.size();
+        }
+        next = 0;
+    }
+
+    private Eliminator create(ISudoku p) {
+        CandidateGrid candidates = new CandidateGrid(p.getTopology(), p.getSymbolCodeRange());
+        EliminationLog log = reasons ? new EliminationLog(candidates.getCellCount()) : null;
+        Eliminator basic = new BasicEliminationEliminator(p, candidates, log);
+        basic.eliminate();
+
+        switch (eliminator) {
+            case "basic":
+                return basic;
+            case "nakedGroups":
+                return new NakedGroupEliminator(p, candidates, log);
+            case "intersectionRadiation":
+                return new IntersectionRadiationEliminator(p, candidates, log);
+            case "xWings":
+                return new XWingEliminator(p, candidates, log);
+            case "frankenFish":
+                return new XWingEliminator(p, candidates, log, true);
+            case "forcedChains":
+                return new ForcedChainEliminator(p, candidates, log);
+            default:
+                throw new IllegalArgumentException("Unknown eliminator " + eliminator);
+        }
+    }
+
+    @Benchmark
+    public boolean eliminate() {
+        return batch[next++].eliminate();
+    }
+}
@@ -2,14 +2,17 @@ package ottop.sudoku;
 
 // As computer security expert Ben Laurie has stated, ui.SudokuMain is "a denial of service attack on human intellect"
 
-import ottop.sudoku.puzzle.ISudoku;
+import ottop.sudoku.reader.SudokuCorpusReader;
+import ottop.sudoku.reader.SudokuFileReader;
 import ottop.sudoku.reader.SudokuReader;
 import ottop.sudoku.reader.SudokuResourceReader;
-import ottop.sudoku.solver.SudokuSolver;
+import ottop.sudoku.solver.BatchSolver;
+import ottop.sudoku.solver.SolveResultCache;
 
 import java.io.IOException;
-import java.time.Duration;
-import java.time.Instant;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 // Massive collections of Sudoku's here. Not currently used but perhaps
 // can pick the ones with higher ratings.
@@ -90,31 +93,41 @@ public class SudokuMain {
         //SudokuReader sr = new Kaggle1MSudokuReader();
         //SudokuReader sr = new HardestSudokuDatabaseReader();
 
+        // Optionally a puzzle file on disk, e.g. the Kaggle csv or a binary corpus,
+        // and a file to keep the results in between runs
+        Path puzzleFile = args.length > 0 ? Paths.get(args[0]) : null;
+        Path cacheFile = args.length > 1 ? Paths.get(args[1]) : null;
 
-        while (true) {
-            SudokuReader sr = new MagicTourReader();
-
-            Instant start = Instant.now();
-            int nSolved = 0;
-            int nUnsolved = 0;
-
-            while (sr.hasNext()) {
-                ISudoku p = sr.next();
-                //System.out.println(p);
-
-                //SudokuSolver solver = new SudokuSolver(p);
-                //ISudoku solvedPuzzle = solver.setSmartest().solve();
-                //if (solvedPuzzle != null && solvedPuzzle.isSolved()) {
-                int result = SudokuSolver.assessDifficulty(p);
-                if (result < 0) nSolved++; else nUnsolved++;
+        // The same puzzles come by every round, rate them only once
+        SolveResultCache cache = new SolveResultCache(1_000_000);
+        if (cacheFile != null && Files.exists(cacheFile)) cache.load(cacheFile);
+        BatchSolver<Integer> batch = BatchSolver.difficultyRater(cache);
 
-//                System.out.println("Puzzle " + p.getName() +
-//                        " level " + SudokuSolver.assessDifficulty(p)); // + solvedPuzzle);
+        while (true) {
+            if (puzzleFile == null) {
+                rateAll(batch, new MagicTourReader(), cache);
+            } else if (puzzleFile.toString().endsWith(".sdkc")) {
+                try (SudokuCorpusReader sr = new SudokuCorpusReader(puzzleFile)) {
+                    rateAll(batch, sr, cache);
+                }
+            } else {
+                try (SudokuFileReader sr = new SudokuFileReader(puzzleFile, true, 0)) {
+                    rateAll(batch, sr, cache);
+                }
             }
 
-            Instant finish = Instant.now();
-            long timeElapsed = Duration.between(start, finish).toMillis();
-            System.out.println("Solved " + nSolved + "/" + (nSolved+nUnsolved) + " in " + timeElapsed/1000.0 + " secs");
+            if (cacheFile != null) cache.save(cacheFile);
         }
     }
+
+    private static void rateAll(BatchSolver<Integer> batch, SudokuReader sr, SolveResultCache cache) throws IOException {
+        int[] counts = new int[2]; // unsolved, solved
+        BatchSolver.Stats stats = batch.run(sr, (p, level) -> {
+            counts[level >= 0 ? 1 : 0]++;
+//            System.out.println("Puzzle " + p.getName() + " level " + level);
+        });
+
+        System.out.println("Solved " + counts[1] + "/" + (counts[0] + counts[1]) + ", " + stats +
+                ", " + cache.getHits() + " cache hits");
+    }
 }
@@ -5,30 +5,21 @@ import ottop.sudoku.puzzle.ISudoku;
 import java.util.*;
 
 public abstract class AbstractGroup implements Comparable<AbstractGroup> {
-    protected static int EMPTYSYMBOLCODE = 0; // 0 by definition, code for empty cell is 0
-    private boolean[] hasSymbolCode; // map that tells which symbols are currently contained
-    private Map<Coord, Integer> coords; // the cell coordinates in this group, mapped to internal index
-    private int[] groupSymbolCodes; // current cell state
-    private int groupOccupiedSize; // nr of occupied cells in group
+    private final int[] cells; // cell indices of this group, by internal index
+    private final Set<Coord> coords; // the same cells as coordinates
     private final String groupID;
 
     /*
     For a standard SudokuMain:
 
-    Group has cells with internal index 0..8, mapped to (current) symbol codes via "groupSymbolCodes"
-    "coords" indicates where a coord is in this group: a map of Coord --> internal index
-    "hasSymbolCodes" indicates which symbol codes are currently in this group
+    Group has cells with internal index 0..8, mapped to cell indices of the puzzle via "cells"
 
-    So
-
-    Puzzle.symbolCodeToSymbol( groupSymbolCodes[coords[CELL]] ) gives the symbol at Coord CELL
-
-    and
-
-    groupSymbolCodes[i] = myPuzzle.getSymbolCodeAtCoordinates(
+    cells[i] = myPuzzle.getCellIndex(
        new Coord(startX+internalIndexToRelativeX(i),
                  startY+internalIndexToRelativeY(i)));
 
+    Membership never changes and groups hold no state of the board, so all copies of a
+    puzzle share them. Which symbols a group holds is looked up on the puzzle.
      */
     protected int groupSize; // number of cells in a group, identical to number of distinct symbols -1 for empty
     protected int startX;
@@ -38,30 +29,33 @@ public abstract class AbstractGroup implements Comparable<AbstractGroup> {
         this.startX = startX;
         this.startY = startY;
         this.groupID = id;
+        this.groupSize = myPuzzle.getSymbolCodeRange() - 1;
 
-        resetGroup(myPuzzle);
+        this.cells = new int[groupSize];
+        Set<Coord> groupCoords = new HashSet<>();
+        for (int internalIndex = 0; internalIndex < groupSize; internalIndex++) {
+            int absX = startX + internalIndexToRelativeX(internalIndex);
+            int absY = startY + internalIndexToRelativeY(internalIndex);
+            cells[internalIndex] = absY * myPuzzle.getWidth() + absX;
+            groupCoords.add(new Coord(absX, absY));
+        }
+        this.coords = Collections.unmodifiableSet(groupCoords);
     }
 
-    public void resetGroup(ISudoku myPuzzle) {
+    // For groups of any shape, from the coordinates of their cells in internal index order
+    protected AbstractGroup(List<Coord> members, ISudoku myPuzzle, String id) {
+        this.groupID = id;
         this.groupSize = myPuzzle.getSymbolCodeRange() - 1;
-        this.hasSymbolCode = new boolean[myPuzzle.getSymbolCodeRange()];
-        this.groupSymbolCodes = new int[this.groupSize];
-
-        this.groupOccupiedSize = 0;
-        for (int i = 0; i < groupSize; i++) {
-            groupSymbolCodes[i] = myPuzzle.getSymbolCodeAtCoordinates(new Coord(startX + internalIndexToRelativeX(i), startY + internalIndexToRelativeY(i)));
-            if (groupSymbolCodes[i] != EMPTYSYMBOLCODE) {
-                hasSymbolCode[groupSymbolCodes[i]] = true;
-                groupOccupiedSize++;
-            }
-        }
+        if (members.size() != groupSize || new HashSet<>(members).size() != groupSize)
+            throw new IllegalArgumentException(id + " must have " + groupSize + " different cells");
+        this.startX = members.get(0).getX();
+        this.startY = members.get(0).getY();
 
-        coords = new HashMap<>();
+        this.cells = new int[groupSize];
         for (int internalIndex = 0; internalIndex < groupSize; internalIndex++) {
-            int absX = startX + internalIndexToRelativeX(internalIndex);
-            int absY = startY + internalIndexToRelativeY(internalIndex);
-            coords.put(new Coord(absX, absY), internalIndex);
+            cells[internalIndex] = members.get(internalIndex).getY() * myPuzzle.getWidth() + members.get(internalIndex).getX();
         }
+        this.coords = Collections.unmodifiableSet(new HashSet<>(members));
     }
 
     public abstract int internalIndexToRelativeX(int idx);
@@ -69,33 +63,15 @@ public abstract class AbstractGroup implements Comparable<AbstractGroup> {
     public abstract int internalIndexToRelativeY(int idx);
 
     public boolean isInGroup(Coord c) {
-        return coords.containsKey(c);
+        return coords.contains(c);
     }
 
     public int getGroupSize() { return groupSize; }
 
-    public int getGroupOccupiedSize() { return groupOccupiedSize; }
-
-    private boolean isOccupied(Coord c) {
-        Integer val = coords.get(c);
-        if (val == null) return false;
-        return groupSymbolCodes[val] != EMPTYSYMBOLCODE;
-    }
-
-    public boolean isPossibility(int symbolCode, Coord c) {
-        if (isInGroup(c)) {
-            if (hasSymbolCode[symbolCode]) return false;
-            return !isOccupied(c);
-        }
-        return true;
-    }
-
-    public boolean isComplete() {
-        return groupSize == groupOccupiedSize;
-    }
+    public int[] getCells() { return cells; }
 
     public Set<Coord> getCoords() {
-        return coords.keySet();
+        return coords;
     }
 
 
@@ -104,21 +80,6 @@ public abstract class AbstractGroup implements Comparable<AbstractGroup> {
         return groupID;
     }
 
-    public boolean isInconsistent() {
-        boolean isInconsistent = false;
-        int[] symbolCodeCount = new int[1 + groupSize];
-        for (int i = 0; i < groupSize; i++) {
-            symbolCodeCount[groupSymbolCodes[i]] += 1;
-        }
-        for (int j = 1; j <= groupSize; j++) {
-            if (symbolCodeCount[j] > 1) {
-                isInconsistent = true;
-                break;
-            }
-        }
-        return isInconsistent;
-    }
-
     @Override
     public int compareTo(AbstractGroup g) {
         return groupID.compareTo(g.groupID);
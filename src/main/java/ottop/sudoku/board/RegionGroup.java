@@ -0,0 +1,26 @@
+package ottop.sudoku.board;
+
+import ottop.sudoku.puzzle.ISudoku;
+
+import java.util.List;
+
+// A group of any shape given by its cells: jigsaw regions, diagonals, extra boxes
+
+public class RegionGroup extends AbstractGroup {
+    private final Coord[] members;
+
+    public RegionGroup(List<Coord> members, ISudoku myPuzzle, String id) {
+        super(members, myPuzzle, id);
+        this.members = members.toArray(new Coord[0]);
+    }
+
+    @Override
+    public int internalIndexToRelativeX(int idx) {
+        return members[idx].getX() - startX;
+    }
+
+    @Override
+    public int internalIndexToRelativeY(int idx) {
+        return members[idx].getY() - startY;
+    }
+}
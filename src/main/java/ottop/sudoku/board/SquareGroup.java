@@ -11,11 +11,17 @@ public class SquareGroup extends AbstractGroup {
 
     @Override
     public int internalIndexToRelativeX(int idx) {
-        return idx % 3;
+        return idx % side();
     }
 
     @Override
     public int internalIndexToRelativeY(int idx) {
-        return idx / 3;
+        return idx / side();
+    }
+
+    // 3 for 9 symbols, 4 for 16, 5 for 25. Called from the constructor of
+    // AbstractGroup, so it can't come from a field here.
+    private int side() {
+        return (int) Math.round(Math.sqrt(groupSize));
     }
 }
@@ -0,0 +1,220 @@
+package ottop.sudoku.board;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+// Immutable lookup tables for one puzzle shape: which cells make up each group,
+// which groups each cell is in and which other cells each cell "sees". Cells are
+// numbered row by row (y * width + x), groups in the order of the puzzle's group
+// list. Built once per shape and shared by all puzzles (and clones) of that shape.
+
+public class Topology {
+    private final int width;
+    private final int height;
+    private final Coord[] cells;
+    private final int[][] groupCells; // group -> cells, ascending
+    private final int[][] cellGroups; // cell -> groups, ascending
+    private final int[][] cellGroupPositions; // cell -> position within each of its groups
+    private final int[][] cellPeers; // cell -> other cells sharing a group, ascending
+    private final int[][] families; // family -> groups, see below
+    private final int[][] cellFamilyMembers; // cell -> index within each family of its group there, -1 if none
+    private final boolean[] lineFamilies; // family -> all its groups are (parts of) rows or columns
+    private final int[][] intersections; // {group a, group b, positions in a, positions in b}
+
+    public Topology(int width, int height, List<AbstractGroup> groups) {
+        this.width = width;
+        this.height = height;
+
+        cells = new Coord[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                cells[y * width + x] = new Coord(x, y);
+            }
+        }
+
+        groupCells = new int[groups.size()][];
+        List<List<Integer>> groupsPerCell = new ArrayList<>();
+        for (int cell = 0; cell < cells.length; cell++) {
+            groupsPerCell.add(new ArrayList<>());
+        }
+        for (int g = 0; g < groups.size(); g++) {
+            int[] members = Arrays.stream(groups.get(g).getCells()).distinct().sorted().toArray();
+            groupCells[g] = members;
+            for (int cell : members) {
+                groupsPerCell.get(cell).add(g);
+            }
+        }
+
+        cellGroups = new int[cells.length][];
+        cellGroupPositions = new int[cells.length][];
+        cellPeers = new int[cells.length][];
+        for (int cell = 0; cell < cells.length; cell++) {
+            List<Integer> grps = groupsPerCell.get(cell);
+            cellGroups[cell] = grps.stream().mapToInt(Integer::intValue).toArray();
+            cellGroupPositions[cell] = new int[cellGroups[cell].length];
+            for (int i = 0; i < cellGroups[cell].length; i++) {
+                cellGroupPositions[cell][i] = Arrays.binarySearch(groupCells[cellGroups[cell][i]], cell);
+            }
+
+            Set<Integer> peers = new TreeSet<>();
+            for (int g : cellGroups[cell]) {
+                for (int other : groupCells[g]) {
+                    if (other != cell) peers.add(other);
+                }
+            }
+            cellPeers[cell] = peers.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        // Split the groups into families of groups that don't share cells, like all
+        // rows, all columns or all boxes. Each group goes into the first family it is
+        // disjoint with, so the groups of a shape end up together however the puzzle
+        // lists them.
+        List<List<Integer>> familyGroups = new ArrayList<>();
+        List<boolean[]> familyCells = new ArrayList<>();
+        for (int g = 0; g < groupCells.length; g++) {
+            int f = 0;
+            while (f < familyGroups.size() && !isDisjoint(familyCells.get(f), groupCells[g])) f++;
+            if (f == familyGroups.size()) {
+                familyGroups.add(new ArrayList<>());
+                familyCells.add(new boolean[cells.length]);
+            }
+            familyGroups.get(f).add(g);
+            for (int cell : groupCells[g]) familyCells.get(f)[cell] = true;
+        }
+
+        families = new int[familyGroups.size()][];
+        cellFamilyMembers = new int[cells.length][families.length];
+        lineFamilies = new boolean[families.length];
+        for (int[] members : cellFamilyMembers) Arrays.fill(members, -1);
+        for (int f = 0; f < families.length; f++) {
+            families[f] = familyGroups.get(f).stream().mapToInt(Integer::intValue).toArray();
+            lineFamilies[f] = true;
+            for (int i = 0; i < families[f].length; i++) {
+                for (int cell : groupCells[families[f][i]]) cellFamilyMembers[cell][f] = i;
+                if (!isLine(groupCells[families[f][i]])) lineFamilies[f] = false;
+            }
+        }
+
+        // Pairs of groups (a < b) that share more than one cell, like a box and a row.
+        // The shared cells are kept as positions in both groups, as in CandidateGrid.
+        List<int[]> shared = new ArrayList<>();
+        for (int a = 0; a < groupCells.length; a++) {
+            for (int b = a + 1; b < groupCells.length; b++) {
+                int[] intersection = intersect(a, b);
+                if (Integer.bitCount(intersection[2]) > 1) shared.add(intersection);
+            }
+        }
+        intersections = shared.toArray(new int[0][]);
+    }
+
+    private int[] intersect(int a, int b) {
+        int inA = 0;
+        int inB = 0;
+        int i = 0;
+        int j = 0;
+        while (i < groupCells[a].length && j < groupCells[b].length) {
+            if (groupCells[a][i] < groupCells[b][j]) {
+                i++;
+            } else if (groupCells[a][i] > groupCells[b][j]) {
+                j++;
+            } else {
+                inA |= 1 << i++;
+                inB |= 1 << j++;
+            }
+        }
+        return new int[]{a, b, inA, inB};
+    }
+
+    private boolean isLine(int[] groupCells) {
+        boolean sameRow = true;
+        boolean sameColumn = true;
+        for (int cell : groupCells) {
+            if (cells[cell].getY() != cells[groupCells[0]].getY()) sameRow = false;
+            if (cells[cell].getX() != cells[groupCells[0]].getX()) sameColumn = false;
+        }
+        return sameRow || sameColumn;
+    }
+
+    private static boolean isDisjoint(boolean[] taken, int[] groupCells) {
+        for (int cell : groupCells) {
+            if (taken[cell]) return false;
+        }
+        return true;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getCellCount() {
+        return cells.length;
+    }
+
+    public int getGroupCount() {
+        return groupCells.length;
+    }
+
+    public Coord[] getCells() {
+        return cells;
+    }
+
+    public Coord getCoord(int cell) {
+        return cells[cell];
+    }
+
+    public int getCellIndex(Coord c) {
+        return c.getY() * width + c.getX();
+    }
+
+    // The arrays below are shared, callers must not modify them
+
+    public int[] getGroupCells(int group) {
+        return groupCells[group];
+    }
+
+    public int[] getCellGroups(int cell) {
+        return cellGroups[cell];
+    }
+
+    // Index of the cell in getGroupCells of each of getCellGroups(cell)
+    public int[] getCellGroupPositions(int cell) {
+        return cellGroupPositions[cell];
+    }
+
+    public int[] getCellPeers(int cell) {
+        return cellPeers[cell];
+    }
+
+    public int getFamilyCount() {
+        return families.length;
+    }
+
+    // Groups of a family, none of them share a cell
+    public int[] getFamilyGroups(int family) {
+        return families[family];
+    }
+
+    // Index in getFamilyGroups(family) of the group that has this cell, -1 if none has
+    public int getFamilyMember(int cell, int family) {
+        return cellFamilyMembers[cell][family];
+    }
+
+    // Whether the groups of a family all lie within one row or one column, like the
+    // rows and the columns themselves, as opposed to boxes or NRC windows
+    public boolean isLineFamily(int family) {
+        return lineFamilies[family];
+    }
+
+    // Groups sharing two or more cells, as {group a, group b, positions in a, positions
+    // in b} with a < b. Positions are bits for the indices in getGroupCells.
+    public int[][] getIntersections() {
+        return intersections;
+    }
+}
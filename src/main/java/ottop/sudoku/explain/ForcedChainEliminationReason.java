@@ -0,0 +1,43 @@
+package ottop.sudoku.explain;
+
+import ottop.sudoku.board.Coord;
+
+import java.util.Set;
+
+public class ForcedChainEliminationReason extends Explanation {
+
+    private final Coord removedFromCell;
+    private final Coord branchCell;
+    private final Set<String> branchSymbols;
+
+    public ForcedChainEliminationReason(Set<String> symbols,
+                                        Coord removedFromCell,
+                                        Coord branchCell,
+                                        Set<String> branchSymbols) {
+        super(symbols, removedFromCell);
+        this.removedFromCell = removedFromCell;
+        this.branchCell = branchCell;
+        this.branchSymbols = branchSymbols;
+    }
+
+    public String toString() {
+        StringBuilder result = new StringBuilder(super.toString());
+        if (removedFromCell.equals(branchCell)) {
+            result.append(" because placing it at ").append(branchCell).append(" leads to a contradiction");
+        } else {
+            result.append(" because every one of ").append(branchSymbols).append(" at ")
+                    .append(branchCell).append(" rules it out");
+        }
+        result.append(" (Forced Chain)");
+        return result.toString();
+    }
+
+    public Set<Coord> getHighlightSubArea() {
+        return Set.of(branchCell);
+    }
+
+    @Override
+    public int getDifficulty() {
+        return 8;
+    }
+}
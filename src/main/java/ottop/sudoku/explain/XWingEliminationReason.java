@@ -11,16 +11,28 @@ public class XWingEliminationReason extends Explanation {
     private final AbstractGroup removedFromGroup;
     private final Set<AbstractGroup> groups1;
     private final Set<AbstractGroup> groups2;
+    private final boolean franken;
 
     public XWingEliminationReason(String symbol,
                                   Set<Coord> removedFromCells,
                                   AbstractGroup removedFromGroup,
                                   Set<AbstractGroup> groups1,
                                   Set<AbstractGroup> groups2) {
+        this(symbol, removedFromCells, removedFromGroup, groups1, groups2, false);
+    }
+
+    // Franken fish use boxes (or other non-line groups) as base or cover groups
+    public XWingEliminationReason(String symbol,
+                                  Set<Coord> removedFromCells,
+                                  AbstractGroup removedFromGroup,
+                                  Set<AbstractGroup> groups1,
+                                  Set<AbstractGroup> groups2,
+                                  boolean franken) {
         super(symbol, removedFromCells);
         this.removedFromGroup = removedFromGroup;
         this.groups1 = groups1;
         this.groups2 = groups2;
+        this.franken = franken;
     }
 
 //                                " of " + g + " because " + myPuzzle.symbolCodeToSymbol(symbolCode) + " has to be in " +
@@ -34,6 +46,7 @@ public class XWingEliminationReason extends Explanation {
         if (groups1.size() == 2) name = "X-Wing";
         if (groups1.size() == 3) name = "Swordfish";
         if (groups1.size() == 4) name = "Jellyfish";
+        if (franken) name = "Franken " + name;
 
         result.append(groups1).append(" X ").append(groups2).append(" (" + name + ")");
         return result.toString();
@@ -54,7 +67,7 @@ public class XWingEliminationReason extends Explanation {
 
     @Override
     public int getDifficulty() {
-        // XWing will be 5, Swordfish 6, Jellyfish 7 etc.
-        return 3 + groups1.size();
+        // XWing will be 5, Swordfish 6, Jellyfish 7 etc. and the Franken ones one more
+        return (franken ? 4 : 3) + groups1.size();
     }
 }
@@ -319,7 +319,6 @@ public class Controller {
         if (move != null) {
             Coord coord = move.getKey();
 
-            myPuzzle.doMove(coord, move.getValue());
             currentHighlightedCell = coord;
             showEliminationReasons();
 
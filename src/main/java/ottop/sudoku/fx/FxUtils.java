@@ -14,20 +14,24 @@ import ottop.sudoku.puzzle.ISudoku;
 import java.util.Set;
 
 public class FxUtils {
+    // Outline of the group, also for groups that aren't rectangles (jigsaw regions)
     public static void drawGroup(Canvas canvas, ISudoku p, AbstractGroup g) {
         GraphicsContext gc = canvas.getGraphicsContext2D();
         Set<Coord> coords = g.getCoords();
-        int xMin=Integer.MAX_VALUE, yMin=Integer.MAX_VALUE;
-        int xMax=Integer.MIN_VALUE, yMax= Integer.MIN_VALUE;
+        double w = getCellWidth(canvas, p);
+        double h = getCellHeight(canvas, p);
         for (Coord c: coords) {
-            xMin = Math.min(xMin, c.getX());
-            xMax = Math.max(xMax, c.getX());
-            yMin = Math.min(yMin, c.getY());
-            yMax = Math.max(yMax, c.getY());
+            double x = getCellX(canvas, p, c.getX());
+            double y = getCellY(canvas, p, c.getY());
+            if (!isInGroup(coords, c.getX(), c.getY() - 1)) gc.strokeLine(x, y, x + w, y);
+            if (!isInGroup(coords, c.getX(), c.getY() + 1)) gc.strokeLine(x, y + h, x + w, y + h);
+            if (!isInGroup(coords, c.getX() - 1, c.getY())) gc.strokeLine(x, y, x, y + h);
+            if (!isInGroup(coords, c.getX() + 1, c.getY())) gc.strokeLine(x + w, y, x + w, y + h);
         }
-        gc.strokeRect(getCellX(canvas, p, xMin), getCellY(canvas, p, yMin),
-                (xMax-xMin+1)*getCellWidth(canvas, p), (yMax-yMin+1)*getCellHeight(canvas, p));
+    }
 
+    private static boolean isInGroup(Set<Coord> coords, int x, int y) {
+        return x >= 0 && y >= 0 && coords.contains(new Coord(x, y));
     }
 
     public static void drawPuzzleOnCanvas(Canvas canvas, ISudoku p, Coord highlight, Set<Coord> highlightedSubArea) {
@@ -2,45 +2,81 @@ package ottop.sudoku.puzzle;
 
 import ottop.sudoku.board.Coord;
 import ottop.sudoku.board.AbstractGroup;
+import ottop.sudoku.board.Topology;
 import ottop.sudoku.solver.Updateable;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public abstract class AbstractSudoku implements ISudoku {
+    // Cell/group tables are the same for every puzzle of a given type
+    private static final Map<Class<?>, Topology> topologies = new ConcurrentHashMap<>();
+
     final String name;
     final List<String> possibleSymbols;
     Coord[] allCells;
-    int[][] board; // [x][y] to symbolCode
 
-    // Groups also keep state of which cells in the group are occupied
+    // Symbol code by cell index, row by row. Copies of a puzzle share the array until
+    // one of them changes a cell, see clone.
+    int[] board;
+    boolean boardShared = false;
+    int occupiedCount; // cells with a symbol
+    int duplicateCount; // pairs of peers with the same symbol, > 0 means inconsistent
 
+    // Groups only describe which cells belong together, all copies share them
     List<AbstractGroup> groups = new ArrayList<>();
-    final List<AbstractGroup> groupsWithBoundaries = new ArrayList<>();
+    List<AbstractGroup> groupsWithBoundaries = new ArrayList<>();
+    Topology topology;
 
     Updateable solver = null;
-    List<Coord> undoStack = new ArrayList<>();
-    int undoStackPointer = -1;
 
-    public AbstractSudoku(String name, String[] symbols, int[][] board) {
+    // Moves that can be undone, last one first, and those that can be redone, next
+    // one first. The entries never change, so copies can share them.
+    Move undoStack = null;
+    Move redoStack = null;
+
+    public AbstractSudoku(String name, String[] symbols, int[] board) {
+        this(name, symbols);
+        initBoard(board);
+    }
+
+    // For subclasses that need their own fields set before the groups are made,
+    // they call initBoard themselves
+    AbstractSudoku(String name, String[] symbols) {
         this.name = name;
         this.possibleSymbols = Arrays.asList(symbols);
-        this.board = board; // new int[getWidth()][getHeight()];
+    }
 
-        // Static list of all coordinates in the board
-        List<Coord> cells = new ArrayList<>();
-        for (int x = 0; x < getWidth(); x++) {
-            for (int y = 0; y < getHeight(); y++) {
-                cells.add(new Coord(x, y));
-            }
-        }
-        this.allCells = cells.toArray(new Coord[0]);
+    void initBoard(int[] board) {
+        this.board = board;
 
         // Groups of cells - different for different Sudoku types
         initGroups();
+
+        // Lookup tables shared by all puzzles of this type. Its list of all
+        // coordinates is row by row, so the position in it is the cell index.
+        this.topology = createTopology();
+        this.allCells = topology.getCells();
+
+        for (int cell = 0; cell < board.length; cell++) {
+            if (board[cell] == 0) continue;
+            occupiedCount++;
+            for (int peer : topology.getCellPeers(cell)) {
+                if (peer > cell && board[peer] == board[cell]) duplicateCount++;
+            }
+        }
+    }
+
+    // Types whose groups differ per instance keep their topology elsewhere
+    Topology createTopology() {
+        return topologies.computeIfAbsent(getClass(), k -> new Topology(getWidth(), getHeight(), groups));
     }
 
     abstract void initGroups();
 
+    // A copy costs no more than the object itself: board, groups and undo history are
+    // shared. The board is copied by whichever of the two changes a cell first. The
+    // copy does not report its moves to the solver of the original.
     @Override
     public ISudoku clone() {
         AbstractSudoku c = null;
@@ -50,18 +86,9 @@ public abstract class AbstractSudoku implements ISudoku {
             e.printStackTrace();
         }
 
-        c.allCells = this.allCells.clone();
-
-        // Deep copy of board
-        c.board = new int[board.length][];
-        for (int i = 0; i < board.length; i++) {
-            c.board[i] = Arrays.copyOf(board[i], board[i].length);
-        }
-
-        c.initGroups();
-
-//        c.undoStack = new ArrayList<>();
-//        c.undoStackPointer = -1;
+        boardShared = true;
+        c.boardShared = true;
+        c.solver = null;
 
         return c;
     }
@@ -85,61 +112,82 @@ public abstract class AbstractSudoku implements ISudoku {
 
     @Override
     public boolean isComplete() {
-        for (AbstractGroup g : groups) {
-            if (!g.isComplete()) return false;
-        }
-        return true;
+        return occupiedCount == board.length;
     }
 
     @Override
     public boolean doMove(Coord coord, String symbol) { // x, y start at 0
 
-        board[coord.getX()][coord.getY()] = symbolToSymbolCode(symbol);
-        for (AbstractGroup g: getBuddyGroups(coord)) {
-            g.resetGroup(this);
-        }
+        int symbolCode = symbolToSymbolCode(symbol);
+        int previousSymbolCode = setSymbolCode(coord, symbolCode);
 
-        // Put on undo stack, remove any entries after (because of undo/redo)
+        // Put on undo stack, a new move can't be followed by the undone ones
+        undoStack = new Move(coord, symbol, undoStack);
+        redoStack = null;
+
+        updateSolver(coord, previousSymbolCode, symbolCode);
+
+        return true;
+    }
 
-        undoStackPointer++;
-        undoStack.add(undoStackPointer, coord);
-        while (canRedo()) {
-            undoStack.remove(undoStack.size()-1);
+    // Change one cell of the board and keep the counts in line
+    private int setSymbolCode(Coord coord, int symbolCode) {
+        if (boardShared) {
+            board = board.clone();
+            boardShared = false;
         }
 
-        // Update all candidates
-        solver.update();
+        int cell = getCellIndex(coord);
+        int previousSymbolCode = board[cell];
+        if (previousSymbolCode == symbolCode) return previousSymbolCode;
 
-        return true;
+        for (int peer : topology.getCellPeers(cell)) {
+            if (previousSymbolCode != 0 && board[peer] == previousSymbolCode) duplicateCount--;
+            if (symbolCode != 0 && board[peer] == symbolCode) duplicateCount++;
+        }
+        if (previousSymbolCode != 0) occupiedCount--;
+        if (symbolCode != 0) occupiedCount++;
+        board[cell] = symbolCode;
+        return previousSymbolCode;
+    }
+
+    // Placing a symbol on an empty cell can be propagated incrementally,
+    // anything else (overwriting, clearing) needs a full update.
+    private void updateSolver(Coord coord, int previousSymbolCode, int symbolCode) {
+        if (solver == null) return;
+        if (previousSymbolCode == 0 && symbolCode != 0) {
+            solver.moveDone(getCellIndex(coord), symbolCode);
+        } else {
+            solver.update();
+        }
     }
 
     @Override
     public boolean canUndo() {
-        return undoStackPointer >= 0;
+        return undoStack != null;
     }
 
     @Override
     public boolean canRedo() {
-        return (undoStack.size()-1) > undoStackPointer;
+        return redoStack != null;
     }
 
     @Override
     public Coord undoMove() {
         if (canUndo()) {
-            Coord coord = undoStack.get(undoStackPointer);
+            Move move = undoStack;
+            Coord coord = move.coord;
 
-            board[coord.getX()][coord.getY()] = 0;
-            for (AbstractGroup g: getBuddyGroups(coord)) {
-                g.resetGroup(this);
-            }
+            int symbolCode = setSymbolCode(coord, 0);
 
-            undoStackPointer--;
+            undoStack = move.next;
+            redoStack = new Move(coord, move.symbol, redoStack);
 
-            // Update all candidates
-            solver.update();
+            // Revert the candidate updates of this move
+            if (solver != null) solver.moveUndone(getCellIndex(coord), symbolCode);
 
-            if (undoStackPointer >= 0) {
-                return undoStack.get(undoStackPointer); // last move
+            if (undoStack != null) {
+                return undoStack.coord; // last move
             }
             return null;
         }
@@ -149,18 +197,15 @@ public abstract class AbstractSudoku implements ISudoku {
     @Override
     public Map.Entry<Coord, String> redoMove() {
         if (canRedo()) {
-            undoStackPointer++;
-
-            Coord coord = undoStack.get(undoStackPointer);
-            int symbolCode = getSymbolCodeAtCoordinates(coord);
+            Move move = redoStack;
+            redoStack = move.next;
+            undoStack = new Move(move.coord, move.symbol, undoStack);
 
-            board[coord.getX()][coord.getY()] = symbolCode;
-            for (AbstractGroup g: getBuddyGroups(coord)) {
-                g.resetGroup(this);
-            }
+            Coord coord = move.coord;
+            int symbolCode = symbolToSymbolCode(move.symbol);
+            int previousSymbolCode = setSymbolCode(coord, symbolCode);
 
-            // Update all candidates
-            solver.update();
+            updateSolver(coord, previousSymbolCode, symbolCode);
 
             return new AbstractMap.SimpleEntry<>(coord, symbolCodeToSymbol(symbolCode));
         }
@@ -169,14 +214,7 @@ public abstract class AbstractSudoku implements ISudoku {
 
     @Override
     public boolean isInconsistent() {
-        boolean isInconsistent = false;
-        for (AbstractGroup g : groups) {
-            if (g.isInconsistent()) {
-                isInconsistent = true;
-                break;
-            }
-        }
-        return isInconsistent;
+        return duplicateCount > 0;
     }
 
     @Override
@@ -187,14 +225,17 @@ public abstract class AbstractSudoku implements ISudoku {
     @Override
     public List<AbstractGroup> getBuddyGroups(Coord c) {
         List<AbstractGroup> grps = new ArrayList<>();
-        for (AbstractGroup g : groups) {
-            if (g.isInGroup(c)) {
-                grps.add(g);
-            }
+        for (int g : topology.getCellGroups(getCellIndex(c))) {
+            grps.add(groups.get(g));
         }
         return grps;
     }
 
+    @Override
+    public Topology getTopology() {
+        return topology;
+    }
+
     @Override
     public List<AbstractGroup> getGroupsWithVisualBoundary()
     {
@@ -206,6 +247,11 @@ public abstract class AbstractSudoku implements ISudoku {
         return allCells;
     }
 
+    @Override
+    public int getCellIndex(Coord coord) {
+        return coord.getY() * getWidth() + coord.getX();
+    }
+
     @Override
     public String getName() {
         return name;
@@ -218,17 +264,22 @@ public abstract class AbstractSudoku implements ISudoku {
 
     @Override
     public int getSymbolCodeAtCoordinates(Coord coord) {
-        return board[coord.getX()][coord.getY()];
+        return board[getCellIndex(coord)];
+    }
+
+    @Override
+    public int getSymbolCodeAtCell(int cell) {
+        return board[cell];
     }
 
     @Override
     public String getSymbolAtCoordinates(Coord coord) {
-        return symbolCodeToSymbol(board[coord.getX()][coord.getY()]);
+        return symbolCodeToSymbol(board[getCellIndex(coord)]);
     }
 
     @Override
     public boolean isOccupied(Coord coord) {
-        return board[coord.getX()][coord.getY()] != 0;
+        return board[getCellIndex(coord)] != 0;
     }
 
     @Override
@@ -251,22 +302,19 @@ public abstract class AbstractSudoku implements ISudoku {
         Set<Coord> buddies = new TreeSet<>();
 
         if (coord != null) {
-            for (AbstractGroup g : groups) {
-                if (g.getCoords().contains(coord)) {
-                    buddies.addAll(g.getCoords());
-                }
+            for (int peer : topology.getCellPeers(getCellIndex(coord))) {
+                buddies.add(allCells[peer]);
             }
-            buddies.remove(coord); // you are not your own buddy
         }
 
         return buddies;
     }
 
-    static int[][] readCommaSeparatedBoard(String[] sudokuRows, int width, int height, String[] symbols) {
+    static int[] readCommaSeparatedBoard(String[] sudokuRows, int width, int height, String[] symbols) {
         if (sudokuRows.length != height)
             throw new IllegalArgumentException("Initialization must have " + height + " rows");
 
-        int[][] brd = new int[width][height];
+        int[] brd = new int[width * height];
 
         for (int y = 0; y < height; y++) {
             String s = sudokuRows[y];
@@ -275,18 +323,33 @@ public abstract class AbstractSudoku implements ISudoku {
                 throw new IllegalArgumentException("Initialization must have " + width + " chars for each row");
             for (int x = 0; x < width; x++) {
                 String symbol = aRow[x];
-                brd[x][y] = Math.max(0, Arrays.asList(symbols).indexOf(symbol));
+                brd[y * width + x] = Math.max(0, Arrays.asList(symbols).indexOf(symbol));
             }
         }
 
         return brd;
     }
 
-    static int[][] readSingleCharBoard(String[] sudokuRows, int width, int height, String[] symbols) {
+    static int[] readSymbolCodeBoard(byte[] symbolCodes, int width, int height) {
+        if (symbolCodes.length != width * height)
+            throw new IllegalArgumentException("Initialization must have " + width * height + " cells");
+
+        int[] brd = new int[width * height];
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                brd[y * width + x] = symbolCodes[y * width + x];
+            }
+        }
+
+        return brd;
+    }
+
+    static int[] readSingleCharBoard(String[] sudokuRows, int width, int height, String[] symbols) {
         if (sudokuRows.length != height)
             throw new IllegalArgumentException("Initialization must have " + height + " rows");
 
-        int[][] brd = new int[width][height];
+        int[] brd = new int[width * height];
 
         for (int y = 0; y < height; y++) {
             String s = sudokuRows[y];
@@ -294,10 +357,22 @@ public abstract class AbstractSudoku implements ISudoku {
                 throw new IllegalArgumentException("Initialization must have " + width + " chars for each row");
             for (int x = 0; x < s.length(); x++) {
                 String symbol = s.substring(x, x + 1);
-                brd[x][y] = Math.max(0, Arrays.asList(symbols).indexOf(symbol));
+                brd[y * width + x] = Math.max(0, Arrays.asList(symbols).indexOf(symbol));
             }
         }
 
         return brd;
     }
+
+    private static final class Move {
+        final Coord coord;
+        final String symbol;
+        final Move next;
+
+        Move(Coord coord, String symbol, Move next) {
+            this.coord = coord;
+            this.symbol = symbol;
+            this.next = next;
+        }
+    }
 }
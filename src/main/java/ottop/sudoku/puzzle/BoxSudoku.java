@@ -0,0 +1,56 @@
+package ottop.sudoku.puzzle;
+
+import ottop.sudoku.board.AbstractGroup;
+import ottop.sudoku.board.ColumnGroup;
+import ottop.sudoku.board.RowGroup;
+import ottop.sudoku.board.SquareGroup;
+
+// Plain sudoku of any square size with square boxes, like the standard one but
+// 16x16 with 4x4 boxes or 25x25 with 5x5 boxes. Rows are one character per cell,
+// anything that is not a symbol (space, '.') is an empty cell.
+
+public abstract class BoxSudoku extends AbstractSudoku {
+
+    BoxSudoku(String name, String[] symbols, String[] sudokuRows) {
+        super(name, symbols, readSingleCharBoard(sudokuRows, symbols.length - 1, symbols.length - 1, symbols));
+    }
+
+    BoxSudoku(String name, String[] symbols, byte[] symbolCodes) {
+        super(name, symbols, readSymbolCodeBoard(symbolCodes, symbols.length - 1, symbols.length - 1));
+    }
+
+    // All rows after each other
+    static String[] splitRows(String puzzleData, int size) {
+        if (puzzleData.length() != size * size)
+            throw new IllegalArgumentException("Initialization must have " + size * size + " cells");
+
+        String[] rows = new String[size];
+        for (int y = 0; y < size; y++) {
+            rows[y] = puzzleData.substring(y * size, (y + 1) * size);
+        }
+        return rows;
+    }
+
+    @Override
+    void initGroups() {
+        int size = getWidth();
+        int side = (int) Math.round(Math.sqrt(size));
+        int cnt = 0;
+        for (int y = 0; y < side; y++) {
+            for (int x = 0; x < side; x++) {
+                AbstractGroup g = new SquareGroup(x * side, y * side, this, "Group " + (++cnt));
+                groups.add(g);
+                groupsWithBoundaries.add(g);
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            groups.add(new RowGroup(0, i, this));
+            groups.add(new ColumnGroup(i, 0, this));
+        }
+    }
+
+    @Override
+    public int getHeight() {
+        return getWidth();
+    }
+}
@@ -2,6 +2,7 @@ package ottop.sudoku.puzzle;
 
 import ottop.sudoku.board.Coord;
 import ottop.sudoku.board.AbstractGroup;
+import ottop.sudoku.board.Topology;
 import ottop.sudoku.solver.Updateable;
 
 import java.util.List;
@@ -29,6 +30,8 @@ public interface ISudoku extends Cloneable {
 
     int getSymbolCodeAtCoordinates(Coord coord);
 
+    int getSymbolCodeAtCell(int cell);
+
     int getSymbolCodeRange(); // for standard 9x9 puzzle will return 10 as 0 is always for empty cells
 
     int getWidth(); // will be 9 for standard puzzle
@@ -37,6 +40,8 @@ public interface ISudoku extends Cloneable {
 
     Coord[] getAllCells();
 
+    int getCellIndex(Coord coord); // position of coord in getAllCells(), row by row
+
     boolean doMove(Coord coord, String symbol);
 
     Coord undoMove();
@@ -53,6 +58,8 @@ public interface ISudoku extends Cloneable {
 
     Set<Coord> getBuddies(Coord coord);
 
+    Topology getTopology(); // cell and group lookup tables, shared by all puzzles of this type
+
     String getName();
     
     boolean isAtOverlay(Coord c);
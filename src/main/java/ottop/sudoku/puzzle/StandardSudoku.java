@@ -9,13 +9,13 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class StandardSudoku extends AbstractSudoku {
+    private static final String[] digits = {" ", "1", "2", "3", "4", "5", "6", "7", "8", "9"};
 
     public StandardSudoku(String name,
                           String row1, String row2, String row3,
                           String row4, String row5, String row6,
                           String row7, String row8, String row9) {
-        this(name,
-                new String[]{" ", "1", "2", "3", "4", "5", "6", "7", "8", "9"},
+        this(name, digits,
                 new String[]{row1, row2, row3, row4, row5, row6, row7, row8, row9});
     }
 
@@ -24,6 +24,11 @@ public class StandardSudoku extends AbstractSudoku {
         super(name, symbols, readSingleCharBoard(sudokuRows, 9, 9, symbols));
     }
 
+    // From symbol codes by cell index, row by row, 0 for empty cells
+    public StandardSudoku(String name, byte[] symbolCodes) {
+        super(name, digits, readSymbolCodeBoard(symbolCodes, 9, 9));
+    }
+
     public StandardSudoku(String puzzleName, String puzzleData) {
         this(puzzleName,
                 puzzleData.substring(0, 9),
@@ -0,0 +1,27 @@
+package ottop.sudoku.puzzle;
+
+// 16x16 with 4x4 boxes and the hexadecimal digits 0-9, A-F as symbols
+
+public class Sudoku16x16 extends BoxSudoku {
+    private static final String[] hexDigits = {" ",
+            "0", "1", "2", "3", "4", "5", "6", "7", "8", "9", "A", "B", "C", "D", "E", "F"};
+
+    public Sudoku16x16(String name, String[] sudokuRows) {
+        super(name, hexDigits, sudokuRows);
+    }
+
+    // From all 256 cells in one string, row by row
+    public Sudoku16x16(String name, String puzzleData) {
+        this(name, splitRows(puzzleData, 16));
+    }
+
+    // From symbol codes by cell index, row by row, 0 for empty cells
+    public Sudoku16x16(String name, byte[] symbolCodes) {
+        super(name, hexDigits, symbolCodes);
+    }
+
+    @Override
+    public int getWidth() {
+        return 16;
+    }
+}
@@ -0,0 +1,28 @@
+package ottop.sudoku.puzzle;
+
+// 25x25 with 5x5 boxes and the letters A-Y as symbols
+
+public class Sudoku25x25 extends BoxSudoku {
+    private static final String[] letters = {" ",
+            "A", "B", "C", "D", "E", "F", "G", "H", "I", "J", "K", "L", "M",
+            "N", "O", "P", "Q", "R", "S", "T", "U", "V", "W", "X", "Y"};
+
+    public Sudoku25x25(String name, String[] sudokuRows) {
+        super(name, letters, sudokuRows);
+    }
+
+    // From all 625 cells in one string, row by row
+    public Sudoku25x25(String name, String puzzleData) {
+        this(name, splitRows(puzzleData, 25));
+    }
+
+    // From symbol codes by cell index, row by row, 0 for empty cells
+    public Sudoku25x25(String name, byte[] symbolCodes) {
+        super(name, letters, symbolCodes);
+    }
+
+    @Override
+    public int getWidth() {
+        return 25;
+    }
+}
@@ -0,0 +1,270 @@
+package ottop.sudoku.puzzle;
+
+import java.util.Arrays;
+
+// Maps a standard 9x9 puzzle to a canonical form, the same for all of its isomorphs:
+// the puzzles you get by permuting bands, stacks, the rows within a band and the
+// columns within a stack, by transposing and by relabeling the symbols.
+//
+// The canonical form is the smallest board (row by row, 0 for empty cells) over all
+// those transformations, with the symbols numbered 1, 2, ... in order of their first
+// appearance. The first row always gets the labels 1, 2, ... so only the places of its
+// symbols count: only the rows that can make the smallest first row are tried first,
+// with just the column orders that make it. The other rows are then chosen one at a
+// time, dropping a choice as soon as its row comes out bigger than in the best board
+// so far. Empty rows and columns that only differ by position are tried once, so
+// sparse puzzles don't blow up the search.
+//
+// Instances keep their search state in arrays and are reusable, but not thread-safe.
+
+public class SudokuCanonicalizer {
+    public static final int CELLS = 81;
+    private static final int[][] PERMUTATIONS_3 = {
+            {0, 1, 2}, {0, 2, 1}, {1, 0, 2}, {1, 2, 0}, {2, 0, 1}, {2, 1, 0}
+    };
+
+    private final int[][] grids = new int[2][CELLS]; // as given and transposed
+    private final int[] best = new int[CELLS];
+    private final int[] current = new int[CELLS];
+    private final int[] chosenRows = new int[9];
+    private final int[][] labels = new int[10][10]; // by depth: old symbol code -> new, 0 if none yet
+    private final int[] labelCount = new int[10];
+    private final int[] columns = new int[9]; // new column -> old column
+    private boolean found;
+
+    private int[] grid;
+    private int emptyRows; // bit per row without any symbol
+    private int emptyBands;
+    private int emptyColumns;
+
+    // Canonical symbol codes by cell index, 0 for empty
+    public byte[] canonicalize(byte[] symbolCodes) {
+        if (symbolCodes.length != CELLS) throw new IllegalArgumentException("Only 9x9 boards can be canonicalized");
+
+        for (int cell = 0; cell < CELLS; cell++) {
+            int symbolCode = symbolCodes[cell];
+            if (symbolCode < 0 || symbolCode > 9) throw new IllegalArgumentException("Not a symbol code: " + symbolCode);
+            grids[0][cell] = symbolCode;
+            grids[1][(cell % 9) * 9 + cell / 9] = symbolCode;
+        }
+
+        int smallest = Integer.MAX_VALUE;
+        for (int[] g : grids) {
+            for (int row = 0; row < 9; row++) smallest = Math.min(smallest, smallestFirstRow(g, row));
+        }
+
+        found = false;
+        for (int[] g : grids) {
+            grid = g;
+            findEmptyLines();
+            for (int row = 0; row < 9; row++) {
+                if (smallestFirstRow(g, row) == smallest) searchColumnOrders(row);
+            }
+        }
+
+        byte[] result = new byte[CELLS];
+        for (int cell = 0; cell < CELLS; cell++) result[cell] = (byte) best[cell];
+        return result;
+    }
+
+    public byte[] canonicalize(ISudoku p) {
+        return canonicalize(toSymbolCodes(p));
+    }
+
+    // The canonical form as a new puzzle with the digits as symbols
+    public ISudoku canonicalPuzzle(ISudoku p) {
+        return new StandardSudoku(p.getName(), canonicalize(p));
+    }
+
+    // 81 characters, '.' for empty. Equal for isomorphic puzzles only, so usable
+    // as a key to find duplicates.
+    public String canonicalString(ISudoku p) {
+        byte[] canonical = canonicalize(p);
+        char[] chars = new char[CELLS];
+        for (int cell = 0; cell < CELLS; cell++) {
+            chars[cell] = canonical[cell] == 0 ? '.' : (char) ('0' + canonical[cell]);
+        }
+        return new String(chars);
+    }
+
+    private static byte[] toSymbolCodes(ISudoku p) {
+        if (!(p instanceof StandardSudoku) || p.getSymbolCodeRange() != 10 || p.getGroups().size() != 27)
+            throw new IllegalArgumentException("Only standard 9x9 puzzles can be canonicalized");
+
+        byte[] symbolCodes = new byte[CELLS];
+        for (int cell = 0; cell < CELLS; cell++) {
+            symbolCodes[cell] = (byte) p.getSymbolCodeAtCell(cell);
+        }
+        return symbolCodes;
+    }
+
+    // With the row first, where its symbols go in the best column order: the stacks
+    // with the fewest symbols first, the symbols at the end of each stack. Bit per
+    // column, the first column highest, so smaller means a smaller row.
+    private static int smallestFirstRow(int[] grid, int row) {
+        int[] counts = stackCounts(grid, row);
+        int min = Math.min(counts[0], Math.min(counts[1], counts[2]));
+        int max = Math.max(counts[0], Math.max(counts[1], counts[2]));
+        int mid = counts[0] + counts[1] + counts[2] - min - max;
+        return ((1 << min) - 1) << 6 | ((1 << mid) - 1) << 3 | ((1 << max) - 1);
+    }
+
+    private static int[] stackCounts(int[] grid, int row) {
+        int[] counts = new int[3];
+        for (int x = 0; x < 9; x++) {
+            if (grid[row * 9 + x] != 0) counts[x / 3]++;
+        }
+        return counts;
+    }
+
+    // Search from each column order that gives the smallest first row for this row
+    private void searchColumnOrders(int row) {
+        int[] counts = stackCounts(grid, row);
+
+        // per stack, bit per permutation of its columns that puts the empty cells first
+        int[] within = new int[3];
+        for (int stack = 0; stack < 3; stack++) {
+            for (int p = 0; p < 6; p++) {
+                boolean emptyFirst = true;
+                for (int j = 1; j < 3; j++) {
+                    if (grid[row * 9 + 3 * stack + PERMUTATIONS_3[p][j - 1]] != 0
+                            && grid[row * 9 + 3 * stack + PERMUTATIONS_3[p][j]] == 0) emptyFirst = false;
+                }
+                if (emptyFirst) within[stack] |= 1 << p;
+            }
+        }
+
+        int[] permutations = new int[3];
+        for (int[] stacks : PERMUTATIONS_3) {
+            if (counts[stacks[0]] > counts[stacks[1]] || counts[stacks[1]] > counts[stacks[2]]) continue;
+            for (int order = 0; order < 6 * 6 * 6; order++) {
+                permutations[0] = order / 36;
+                permutations[1] = order / 6 % 6;
+                permutations[2] = order % 6;
+
+                boolean allowed = true;
+                for (int s = 0; s < 3 && allowed; s++) {
+                    allowed = (within[stacks[s]] & (1 << permutations[s])) != 0;
+                    for (int j = 0; j < 3; j++) {
+                        columns[3 * s + j] = 3 * stacks[s] + PERMUTATIONS_3[permutations[s]][j];
+                    }
+                }
+                if (!allowed || !isFirstOrder()) continue;
+
+                labelCount[0] = 0;
+                Arrays.fill(labels[0], 0);
+                searchRow(0, row, false);
+            }
+        }
+    }
+
+    // Choose the row for depth r, the given one at depth 0. 'less' is set when the
+    // rows so far already make a smaller board than the best one. Returns true if the
+    // best board was replaced.
+    private boolean searchRow(int r, int firstRow, boolean less) {
+        if (r == 9) {
+            System.arraycopy(current, 0, best, 0, CELLS);
+            found = true;
+            return true;
+        }
+
+        boolean updated = false;
+        // empty rows of a band are all alike, and so are empty bands
+        int emptyTried = 0; // bit per band, bit 3 for any empty band
+        for (int row = 0; row < 9; row++) {
+            if (r == 0 ? row != firstRow : !isAllowed(r, row)) continue;
+
+            if ((emptyRows & (1 << row)) != 0) {
+                int key = r % 3 == 0 && (emptyBands & (1 << (row / 3))) != 0 ? 1 << 3 : 1 << (row / 3);
+                if ((emptyTried & key) != 0) continue;
+                emptyTried |= key;
+            }
+
+            int[] rowLabels = labels[r + 1];
+            System.arraycopy(labels[r], 0, rowLabels, 0, 10);
+            labelCount[r + 1] = labelCount[r];
+
+            boolean rowLess = less;
+            boolean pruned = false;
+            for (int c = 0; c < 9; c++) {
+                int symbolCode = grid[row * 9 + columns[c]];
+                int label = 0;
+                if (symbolCode != 0) {
+                    label = rowLabels[symbolCode];
+                    if (label == 0) label = rowLabels[symbolCode] = ++labelCount[r + 1];
+                }
+                current[r * 9 + c] = label;
+                if (!rowLess && found) {
+                    if (label > best[r * 9 + c]) {
+                        pruned = true;
+                        break;
+                    }
+                    if (label < best[r * 9 + c]) rowLess = true;
+                }
+            }
+
+            if (!pruned) {
+                chosenRows[r] = row;
+                if (searchRow(r + 1, firstRow, rowLess)) {
+                    // the best board now starts with the rows chosen so far
+                    updated = true;
+                    less = false;
+                }
+            }
+        }
+        return updated;
+    }
+
+    // Rows 0, 3 and 6 start a band that was not used yet, the others continue it
+    private boolean isAllowed(int r, int row) {
+        int start = r - r % 3;
+        if (r > start) return chosenRows[start] / 3 == row / 3 && chosenRows[r - 1] != row
+                && (r - 2 < start || chosenRows[r - 2] != row);
+
+        for (int i = 0; i < r; i += 3) {
+            if (chosenRows[i] / 3 == row / 3) return false;
+        }
+        return true;
+    }
+
+    private void findEmptyLines() {
+        emptyRows = 0;
+        emptyBands = 0;
+        emptyColumns = 0;
+        for (int i = 0; i < 9; i++) {
+            boolean rowEmpty = true;
+            boolean columnEmpty = true;
+            for (int j = 0; j < 9; j++) {
+                rowEmpty &= grid[i * 9 + j] == 0;
+                columnEmpty &= grid[j * 9 + i] == 0;
+            }
+            if (rowEmpty) emptyRows |= 1 << i;
+            if (columnEmpty) emptyColumns |= 1 << i;
+        }
+        for (int band = 0; band < 3; band++) {
+            if ((emptyRows >> (3 * band) & 7) == 7) emptyBands |= 1 << band;
+        }
+    }
+
+    // Column orders that only differ in where empty columns (or whole empty stacks)
+    // go give the same boards, only the one that keeps them in ascending order is used
+    private boolean isFirstOrder() {
+        int lastEmptyStack = -1;
+        for (int s = 0; s < 3; s++) {
+            int stack = columns[3 * s] / 3;
+            if ((emptyColumns >> (3 * stack) & 7) == 7) {
+                if (stack < lastEmptyStack) return false;
+                lastEmptyStack = stack;
+            }
+            int lastEmptyColumn = -1;
+            for (int j = 0; j < 3; j++) {
+                int column = columns[3 * s + j];
+                if ((emptyColumns & (1 << column)) != 0) {
+                    if (column < lastEmptyColumn) return false;
+                    lastEmptyColumn = column;
+                }
+            }
+        }
+        return true;
+    }
+}
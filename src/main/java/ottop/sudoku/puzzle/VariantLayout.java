@@ -0,0 +1,255 @@
+package ottop.sudoku.puzzle;
+
+import ottop.sudoku.board.AbstractGroup;
+import ottop.sudoku.board.Coord;
+import ottop.sudoku.board.Topology;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+// The groups of a sudoku variant as a short text, so a new variant needs no class of
+// its own. One directive per line, blank lines and lines starting with # are skipped:
+//
+//   size 9              cells per side, first
+//   symbols 123456789   one character each, 1-9 when left out for size 9
+//   rows                every row is a group
+//   columns             every column is a group
+//   boxes 3x3           boxes of that width and height, outlined
+//   diagonals           both main diagonals, shaded
+//   regions             followed by one line per row, one character per cell: cells
+//                       with the same character make a group, '.' is in none.
+//                       Outlined, for jigsaw shapes.
+//   extra               the same, but shaded, for extra boxes like NRC windows
+//
+// A layout is parsed once and used by VariantSudoku for any number of puzzles. The
+// cell and group tables (Topology) are made for the first of them and then shared,
+// just like those of the puzzle types that have their own class.
+
+public class VariantLayout {
+    private static final String DIGITS = "123456789";
+
+    private final int size;
+    private final String[] symbols; // " " for empty first
+    private final List<String> regionIds = new ArrayList<>();
+    private final List<List<Coord>> regions = new ArrayList<>(); // cells per group, in order
+    private final List<Boolean> outlined = new ArrayList<>();
+    private final boolean[] shaded; // by cell index
+    private String id;
+    private volatile Topology topology;
+
+    private VariantLayout(int size, String symbols) {
+        this.size = size;
+        this.symbols = new String[size + 1];
+        this.symbols[0] = " ";
+        for (int i = 0; i < size; i++) {
+            this.symbols[i + 1] = symbols.substring(i, i + 1);
+        }
+        this.shaded = new boolean[size * size];
+    }
+
+    public static VariantLayout parse(String description) {
+        List<String> lines = new ArrayList<>();
+        for (String line : description.split("\\R")) {
+            line = line.trim();
+            if (!line.isEmpty() && !line.startsWith("#")) lines.add(line);
+        }
+        if (lines.isEmpty() || !lines.get(0).startsWith("size "))
+            throw new IllegalArgumentException("Layout must start with its size");
+
+        int size;
+        try {
+            size = Integer.parseInt(lines.get(0).substring(5).trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a size: " + lines.get(0));
+        }
+        if (size < 2 || size > 30) throw new IllegalArgumentException("Size must be 2 to 30");
+
+        int next = 1;
+        String symbols = size == DIGITS.length() ? DIGITS : null;
+        if (next < lines.size() && lines.get(next).startsWith("symbols ")) {
+            symbols = lines.get(next++).substring(8).trim();
+        }
+        if (symbols == null) throw new IllegalArgumentException("Symbols are needed for size " + size);
+        if (symbols.length() != size || symbols.chars().distinct().count() != size || symbols.contains("."))
+            throw new IllegalArgumentException("Need " + size + " different symbols, not " + symbols);
+
+        VariantLayout layout = new VariantLayout(size, symbols);
+        while (next < lines.size()) {
+            String[] directive = lines.get(next++).split("\\s+");
+            switch (directive[0]) {
+                case "rows":
+                    layout.addRows();
+                    break;
+                case "columns":
+                    layout.addColumns();
+                    break;
+                case "boxes":
+                    layout.addBoxes(directive.length == 2 ? directive[1] : "");
+                    break;
+                case "diagonals":
+                    layout.addDiagonals();
+                    break;
+                case "regions":
+                case "extra":
+                    if (next + size > lines.size())
+                        throw new IllegalArgumentException("'" + directive[0] + "' needs " + size + " rows");
+                    layout.addRegions(lines.subList(next, next + size), directive[0].equals("regions"));
+                    next += size;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown layout directive: " + directive[0]);
+            }
+        }
+        if (layout.regions.isEmpty()) throw new IllegalArgumentException("Layout has no groups");
+        layout.id = fingerprint(String.join("\n", lines));
+        return layout;
+    }
+
+    public static VariantLayout read(Path file) throws IOException {
+        return parse(Files.readString(file));
+    }
+
+    // First 8 bytes of the SHA-256 of the directives, in hex
+    private static String fingerprint(String directives) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(directives.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(16);
+            for (int i = 0; i < 8; i++) hex.append(String.format("%02x", hash[i]));
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is missing", e);
+        }
+    }
+
+    private void addRows() {
+        for (int y = 0; y < size; y++) {
+            List<Coord> cells = new ArrayList<>();
+            for (int x = 0; x < size; x++) cells.add(new Coord(x, y));
+            addRegion("Row " + (y + 1), cells, false);
+        }
+    }
+
+    private void addColumns() {
+        for (int x = 0; x < size; x++) {
+            List<Coord> cells = new ArrayList<>();
+            for (int y = 0; y < size; y++) cells.add(new Coord(x, y));
+            addRegion("Column " + (x + 1), cells, false);
+        }
+    }
+
+    private void addBoxes(String shape) {
+        String[] sides = shape.split("x");
+        int width;
+        int height;
+        try {
+            width = Integer.parseInt(sides[0]);
+            height = Integer.parseInt(sides[1]);
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Boxes need a shape like 3x3, not '" + shape + "'");
+        }
+        if (width < 1 || height < 1 || width * height != size || size % width != 0)
+            throw new IllegalArgumentException("Boxes of " + shape + " don't tile " + size + "x" + size);
+
+        int cnt = 0;
+        for (int startY = 0; startY < size; startY += height) {
+            for (int startX = 0; startX < size; startX += width) {
+                List<Coord> cells = new ArrayList<>();
+                for (int i = 0; i < size; i++) cells.add(new Coord(startX + i % width, startY + i / width));
+                addRegion("Group " + (++cnt), cells, true);
+            }
+        }
+    }
+
+    private void addDiagonals() {
+        List<Coord> down = new ArrayList<>();
+        List<Coord> up = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            down.add(new Coord(i, i));
+            up.add(new Coord(i, size - 1 - i));
+        }
+        addRegion("Diagonal 1", down, false);
+        addRegion("Diagonal 2", up, false);
+        for (Coord c : down) shaded[c.getY() * size + c.getX()] = true;
+        for (Coord c : up) shaded[c.getY() * size + c.getX()] = true;
+    }
+
+    private void addRegions(List<String> rows, boolean isOutlined) {
+        Map<Character, List<Coord>> byName = new TreeMap<>();
+        for (int y = 0; y < size; y++) {
+            String row = rows.get(y);
+            if (row.length() != size)
+                throw new IllegalArgumentException("Region rows must have " + size + " characters: " + row);
+            for (int x = 0; x < size; x++) {
+                char c = row.charAt(x);
+                if (c != '.') byName.computeIfAbsent(c, k -> new ArrayList<>()).add(new Coord(x, y));
+            }
+        }
+
+        String kind = isOutlined ? "Region " : "Extra ";
+        for (Map.Entry<Character, List<Coord>> region : byName.entrySet()) {
+            if (region.getValue().size() != size)
+                throw new IllegalArgumentException(kind + region.getKey() + " must have " + size + " cells");
+            addRegion(kind + region.getKey(), region.getValue(), isOutlined);
+            if (!isOutlined) {
+                for (Coord c : region.getValue()) shaded[c.getY() * size + c.getX()] = true;
+            }
+        }
+    }
+
+    private void addRegion(String id, List<Coord> cells, boolean isOutlined) {
+        regionIds.add(id);
+        regions.add(Collections.unmodifiableList(cells));
+        outlined.add(isOutlined);
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getGroupCount() {
+        return regions.size();
+    }
+
+    // The same for layouts parsed from the same directives, comments and blank
+    // lines aside. Tells puzzles with the same cells but other groups apart.
+    public String getId() {
+        return id;
+    }
+
+    String[] getSymbols() {
+        return symbols;
+    }
+
+    String getRegionId(int region) {
+        return regionIds.get(region);
+    }
+
+    List<Coord> getRegion(int region) {
+        return regions.get(region);
+    }
+
+    boolean isOutlined(int region) {
+        return outlined.get(region);
+    }
+
+    boolean isShaded(Coord c) {
+        return shaded[c.getY() * size + c.getX()];
+    }
+
+    // Built from the groups of the first puzzle, they are the same for all others
+    Topology getTopology(List<AbstractGroup> groups) {
+        Topology t = topology;
+        if (t == null) {
+            synchronized (this) {
+                if (topology == null) topology = new Topology(size, size, groups);
+                t = topology;
+            }
+        }
+        return t;
+    }
+}
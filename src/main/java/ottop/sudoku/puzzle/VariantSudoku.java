@@ -0,0 +1,64 @@
+package ottop.sudoku.puzzle;
+
+import ottop.sudoku.board.AbstractGroup;
+import ottop.sudoku.board.Coord;
+import ottop.sudoku.board.RegionGroup;
+import ottop.sudoku.board.Topology;
+
+// Puzzle with the groups of a VariantLayout: jigsaw, diagonal, extra boxes or any mix.
+// Rows are one character per cell, anything that is not a symbol is an empty cell.
+
+public class VariantSudoku extends AbstractSudoku {
+    private final VariantLayout layout;
+
+    public VariantSudoku(String name, VariantLayout layout, String[] sudokuRows) {
+        super(name, layout.getSymbols());
+        this.layout = layout;
+        initBoard(readSingleCharBoard(sudokuRows, layout.getSize(), layout.getSize(), layout.getSymbols()));
+    }
+
+    // From all cells in one string, row by row
+    public VariantSudoku(String name, VariantLayout layout, String puzzleData) {
+        this(name, layout, BoxSudoku.splitRows(puzzleData, layout.getSize()));
+    }
+
+    // From symbol codes by cell index, row by row, 0 for empty cells
+    public VariantSudoku(String name, VariantLayout layout, byte[] symbolCodes) {
+        super(name, layout.getSymbols());
+        this.layout = layout;
+        initBoard(readSymbolCodeBoard(symbolCodes, layout.getSize(), layout.getSize()));
+    }
+
+    @Override
+    void initGroups() {
+        for (int region = 0; region < layout.getGroupCount(); region++) {
+            AbstractGroup g = new RegionGroup(layout.getRegion(region), this, layout.getRegionId(region));
+            groups.add(g);
+            if (layout.isOutlined(region)) groupsWithBoundaries.add(g);
+        }
+    }
+
+    @Override
+    Topology createTopology() {
+        return layout.getTopology(groups);
+    }
+
+    public VariantLayout getLayout() {
+        return layout;
+    }
+
+    @Override
+    public boolean isAtOverlay(Coord c) {
+        return layout.isShaded(c);
+    }
+
+    @Override
+    public int getWidth() {
+        return layout.getSize();
+    }
+
+    @Override
+    public int getHeight() {
+        return layout.getSize();
+    }
+}
@@ -1,5 +1,11 @@
 package ottop.sudoku.puzzle;
 
+import ottop.sudoku.board.Coord;
+import ottop.sudoku.board.RegionGroup;
+
+import java.util.ArrayList;
+import java.util.List;
+
 // The X-Sudoku has the two main diagonals as extra regions. These two main
 // diagonals must contain all of the digits from 1 to 9 only once too.
 
@@ -7,4 +13,23 @@ public class XSudoku extends StandardSudoku {
     public XSudoku(String name, String row1, String row2, String row3, String row4, String row5, String row6, String row7, String row8, String row9) {
         super(name, row1, row2, row3, row4, row5, row6, row7, row8, row9);
     }
+
+    @Override
+    protected void initGroups() {
+        super.initGroups();
+
+        List<Coord> down = new ArrayList<>();
+        List<Coord> up = new ArrayList<>();
+        for (int i = 0; i < 9; i++) {
+            down.add(new Coord(i, i));
+            up.add(new Coord(i, 8 - i));
+        }
+        groups.add(new RegionGroup(down, this, "Diagonal 1"));
+        groups.add(new RegionGroup(up, this, "Diagonal 2"));
+    }
+
+    @Override
+    public boolean isAtOverlay(Coord c) {
+        return c.getX() == c.getY() || c.getX() == 8 - c.getY();
+    }
 }
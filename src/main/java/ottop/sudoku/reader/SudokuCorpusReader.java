@@ -0,0 +1,180 @@
+package ottop.sudoku.reader;
+
+import ottop.sudoku.puzzle.ISudoku;
+import ottop.sudoku.puzzle.StandardSudoku;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Random access to a binary corpus of standard 9x9 puzzles as written by
+// SudokuCorpusWriter. The file is memory mapped and puzzles are unpacked on
+// demand, either as raw symbol codes or as a full ISudoku. The random access
+// methods only use absolute buffer reads, so several threads can share a reader;
+// sequential reading through hasNext/next keeps a position and is single threaded.
+//
+// File layout (big endian):
+//   header   magic "SDKC", version (short), flags (short), count (int), index offset (long)
+//   records  packed puzzle (41 bytes, cell i in the low nibble of byte i/2 for even i,
+//            the high nibble for odd i, 0 for empty)
+//            [packed solution (41 bytes, all 0 if unknown)]   with FLAG_SOLUTIONS
+//            [rating (signed byte, -1 if not rated or unsolved)] with FLAG_RATINGS
+//            [name length (unsigned short) + UTF-8 name]      with FLAG_NAMES
+//   index    offset of every record (long)
+
+public class SudokuCorpusReader implements SudokuReader, Closeable {
+    static final int MAGIC = 0x53444B43; // "SDKC"
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = 20;
+    static final int CELLS = 81;
+    static final int PACKED_SIZE = (CELLS + 1) / 2;
+
+    public static final short FLAG_SOLUTIONS = 1;
+    public static final short FLAG_RATINGS = 2;
+    public static final short FLAG_NAMES = 4;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final String namePrefix;
+    private final short flags;
+    private final int count;
+    private final int indexOffset;
+
+    private int position = -1; // for sequential reading
+
+    public SudokuCorpusReader(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE)
+                throw new IllegalArgumentException("Corpus file too large to map");
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (size < HEADER_SIZE || buffer.getInt(0) != MAGIC)
+                throw new IllegalArgumentException(path + " is not a puzzle corpus");
+            if (buffer.getShort(4) != VERSION)
+                throw new IllegalArgumentException("Unsupported corpus version " + buffer.getShort(4));
+
+            flags = buffer.getShort(6);
+            count = buffer.getInt(8);
+            long offset = buffer.getLong(12);
+            if (offset < HEADER_SIZE || offset + 8L * count != size)
+                throw new IllegalArgumentException(path + " has a damaged index");
+            indexOffset = (int) offset;
+        } catch (RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        namePrefix = String.valueOf(path.getFileName());
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public boolean hasSolutions() {
+        return (flags & FLAG_SOLUTIONS) != 0;
+    }
+
+    public boolean hasRatings() {
+        return (flags & FLAG_RATINGS) != 0;
+    }
+
+    public boolean hasNames() {
+        return (flags & FLAG_NAMES) != 0;
+    }
+
+    // Symbol codes of a puzzle by cell index, 0 for empty
+    public byte[] getCells(int index) {
+        byte[] cells = new byte[CELLS];
+        getCells(index, cells);
+        return cells;
+    }
+
+    public void getCells(int index, byte[] cells) {
+        unpack(index, recordOffset(index), cells);
+    }
+
+    // Stored solution by cell index, null if there is none
+    public int[] getSolution(int index) {
+        if (!hasSolutions()) return null;
+
+        byte[] cells = new byte[CELLS];
+        unpack(index, recordOffset(index) + PACKED_SIZE, cells);
+        int[] solution = new int[CELLS];
+        for (int i = 0; i < CELLS; i++) {
+            if (cells[i] == 0) return null; // not stored
+            solution[i] = cells[i];
+        }
+        return solution;
+    }
+
+    // Difficulty as rated by SudokuSolver.assessDifficulty, -1 if unknown
+    public int getRating(int index) {
+        if (!hasRatings()) return -1;
+        return buffer.get(recordOffset(index) + ratingOffset());
+    }
+
+    public String getName(int index) {
+        if (!hasNames()) return namePrefix + " " + (index + 1);
+
+        int offset = recordOffset(index) + ratingOffset() + (hasRatings() ? 1 : 0);
+        int length = buffer.getShort(offset) & 0xFFFF;
+        byte[] utf8 = new byte[length];
+        buffer.get(offset + 2, utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    public ISudoku get(int index) {
+        return new StandardSudoku(getName(index), getCells(index));
+    }
+
+    // Closes the file at the end, the mapped puzzles stay readable
+    @Override
+    public boolean hasNext() throws IOException {
+        if (position + 1 < count) {
+            position++;
+            return true;
+        }
+        close();
+        return false;
+    }
+
+    @Override
+    public ISudoku next() {
+        return get(position);
+    }
+
+    // Index of the puzzle last returned by next()
+    public int getPosition() {
+        return position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private int recordOffset(int index) {
+        if (index < 0 || index >= count)
+            throw new IndexOutOfBoundsException("Puzzle " + index + " not in corpus of " + count);
+        return (int) buffer.getLong(indexOffset + 8 * index);
+    }
+
+    private int ratingOffset() {
+        return PACKED_SIZE + (hasSolutions() ? PACKED_SIZE : 0);
+    }
+
+    private void unpack(int index, int offset, byte[] cells) {
+        for (int i = 0; i < CELLS; i++) {
+            int b = buffer.get(offset + i / 2);
+            cells[i] = (byte) ((i % 2 == 0 ? b : b >> 4) & 0x0F);
+            if (cells[i] > 9)
+                throw new IllegalStateException("Puzzle " + index + " has a damaged record, cell " +
+                        i + " is " + cells[i]);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package ottop.sudoku.reader;
+
+import ottop.sudoku.puzzle.ISudoku;
+import ottop.sudoku.puzzle.StandardSudoku;
+import ottop.sudoku.solver.BatchSolver;
+import ottop.sudoku.solver.BruteForceSolver;
+import ottop.sudoku.solver.SudokuSolver;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static ottop.sudoku.reader.SudokuCorpusReader.*;
+
+// Writes a binary puzzle corpus, see SudokuCorpusReader for the layout. Records
+// are streamed out as they are added, the index and the header are written on close.
+
+public class SudokuCorpusWriter implements Closeable {
+    private final Path path;
+    private final short flags;
+    private final DataOutputStream out;
+    private final byte[] packed = new byte[PACKED_SIZE];
+    private final byte[] cells = new byte[CELLS];
+
+    private long[] offsets = new long[1024];
+    private int count = 0;
+    private long position = HEADER_SIZE;
+
+    public SudokuCorpusWriter(Path path, boolean withSolutions, boolean withRatings, boolean withNames) throws IOException {
+        this.path = path;
+        this.flags = (short) ((withSolutions ? FLAG_SOLUTIONS : 0) |
+                (withRatings ? FLAG_RATINGS : 0) |
+                (withNames ? FLAG_NAMES : 0));
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)));
+        out.write(new byte[HEADER_SIZE]); // filled in on close
+    }
+
+    // Solution by cell index may be null, rating -1 if unknown
+    public void add(ISudoku p, int[] solution, int rating) throws IOException {
+        if (!(p instanceof StandardSudoku) || p.getSymbolCodeRange() != 10 || p.getGroups().size() != 27)
+            throw new IllegalArgumentException("Only standard 9x9 puzzles can be stored in a corpus");
+
+        byte[] symbolCodes = new byte[CELLS];
+        for (int cell = 0; cell < CELLS; cell++) {
+            symbolCodes[cell] = (byte) p.getSymbolCodeAtCell(cell);
+        }
+        add(symbolCodes, solution, rating, p.getName());
+    }
+
+    public void add(byte[] symbolCodes, int[] solution, int rating, String name) throws IOException {
+        if (symbolCodes.length != CELLS)
+            throw new IllegalArgumentException("Corpus puzzles must have " + CELLS + " cells");
+
+        if (count == offsets.length) offsets = Arrays.copyOf(offsets, count * 2);
+        offsets[count++] = position;
+
+        writePacked(symbolCodes);
+        if ((flags & FLAG_SOLUTIONS) != 0) {
+            Arrays.fill(cells, (byte) 0);
+            if (solution != null) {
+                for (int i = 0; i < CELLS; i++) cells[i] = (byte) solution[i];
+            }
+            writePacked(cells);
+        }
+        if ((flags & FLAG_RATINGS) != 0) {
+            out.writeByte(rating);
+            position++;
+        }
+        if ((flags & FLAG_NAMES) != 0) {
+            byte[] utf8 = (name == null ? "" : name).getBytes(StandardCharsets.UTF_8);
+            int length = Math.min(utf8.length, 0xFFFF);
+            out.writeShort(length);
+            out.write(utf8, 0, length);
+            position += 2 + length;
+        }
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        long indexOffset = position;
+        for (int i = 0; i < count; i++) {
+            out.writeLong(offsets[i]);
+        }
+        out.close();
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putShort(VERSION).putShort(flags).putInt(count).putLong(indexOffset);
+        header.flip();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(header, 0);
+        }
+    }
+
+    private void writePacked(byte[] symbolCodes) throws IOException {
+        Arrays.fill(packed, (byte) 0);
+        for (int i = 0; i < CELLS; i++) {
+            packed[i / 2] |= (i % 2 == 0 ? symbolCodes[i] : symbolCodes[i] << 4);
+        }
+        out.write(packed);
+        position += PACKED_SIZE;
+    }
+
+    // Convert all puzzles of a reader (e.g. one of the text resource readers) into
+    // a corpus with names, solving and rating them in parallel if asked for.
+    // Returns the number of puzzles written.
+    public static int convert(SudokuReader reader, Path target, boolean withSolutions, boolean withRatings) throws IOException {
+        try (SudokuCorpusWriter writer = new SudokuCorpusWriter(target, withSolutions, withRatings, true)) {
+            if (!withSolutions && !withRatings) {
+                while (reader.hasNext()) {
+                    writer.add(reader.next(), null, -1);
+                }
+            } else {
+                new BatchSolver<Solved>(() -> p -> new Solved(
+                        withSolutions ? new BruteForceSolver(p).findSolution(p) : null,
+                        withRatings ? SudokuSolver.assessDifficulty(p) : -1)
+                ).run(reader, (p, solved) -> {
+                    try {
+                        writer.add(p, solved.solution, solved.rating);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+            return writer.getCount();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static class Solved {
+        final int[] solution;
+        final int rating;
+
+        Solved(int[] solution, int rating) {
+            this.solution = solution;
+            this.rating = rating;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package ottop.sudoku.reader;
+
+import ottop.sudoku.puzzle.ISudoku;
+import ottop.sudoku.puzzle.StandardSudoku;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Reads standard 9x9 puzzles from a file on disk, one per line, as 81 characters
+// in one of the comma separated columns ('1'-'9' for givens, '.' or '0' for empty
+// cells). Lines that don't have such a column (headers, comments) are skipped.
+// This covers the top95, Kaggle and Hardest database files.
+//
+// The file is scanned byte by byte, either through a small read buffer or memory
+// mapped, and each puzzle is parsed into a reused array of symbol codes. A full
+// ISudoku is only created when next() is called, so consumers that can work on the
+// raw cells (like BruteForceSolver) don't pay for groups and undo stacks.
+
+public class SudokuFileReader implements SudokuReader, Closeable {
+    public static final int CELLS = 81;
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final boolean memoryMapped;
+    private final int column;
+    private final String namePrefix;
+
+    private final byte[] cells = new byte[CELLS]; // symbol codes of the current puzzle
+    private long puzzleNo = 0;
+    private boolean atEnd = false;
+
+    public SudokuFileReader(Path path) throws IOException {
+        this(path, false, 0);
+    }
+
+    public SudokuFileReader(Path path, boolean memoryMapped, int column) throws IOException {
+        if (column < 0) throw new IllegalArgumentException("Column must not be negative");
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.memoryMapped = memoryMapped;
+        this.column = column;
+        this.namePrefix = String.valueOf(path.getFileName());
+
+        if (memoryMapped) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                channel.close();
+                throw new IllegalArgumentException("File too large to map, read it unmapped");
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } else {
+            buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+            buffer.flip(); // empty until the first read
+        }
+    }
+
+    @Override
+    public boolean hasNext() throws IOException {
+        while (!atEnd) {
+            if (readLine()) {
+                puzzleNo++;
+                return true;
+            }
+        }
+        close();
+        return false;
+    }
+
+    // Creates a new puzzle from the current cells on every call
+    @Override
+    public ISudoku next() {
+        return new StandardSudoku(namePrefix + " " + puzzleNo, cells);
+    }
+
+    // Symbol codes of the current puzzle by cell index, 0 for empty. The array
+    // is reused for the next puzzle.
+    public byte[] getCells() {
+        return cells;
+    }
+
+    public long getPuzzleNo() {
+        return puzzleNo;
+    }
+
+    @Override
+    public void close() throws IOException {
+        atEnd = true;
+        channel.close();
+    }
+
+    // Scan one line, returns true if it contained a puzzle
+    private boolean readLine() throws IOException {
+        int field = 0;
+        int length = 0; // characters in the puzzle column so far
+        boolean valid = true;
+
+        int b;
+        while ((b = nextByte()) != '\n') {
+            if (b < 0) {
+                atEnd = true;
+                break;
+            }
+            if (b == ',') {
+                field++;
+            } else if (field == column && b != '\r' && valid) {
+                if (length == CELLS) {
+                    valid = false;
+                } else if (b >= '1' && b <= '9') {
+                    cells[length++] = (byte) (b - '0');
+                } else if (b == '.' || b == '0') {
+                    cells[length++] = 0;
+                } else {
+                    valid = false;
+                }
+            }
+        }
+        return valid && length == CELLS;
+    }
+
+    private int nextByte() throws IOException {
+        if (!buffer.hasRemaining() && !refill()) return -1;
+        return buffer.get() & 0xFF;
+    }
+
+    private boolean refill() throws IOException {
+        if (memoryMapped) return false;
+
+        buffer.clear();
+        int n;
+        do {
+            n = channel.read(buffer);
+        } while (n == 0);
+        buffer.flip();
+        return n > 0;
+    }
+}
@@ -1,7 +1,6 @@
 package ottop.sudoku.solver;
 
-import ottop.sudoku.board.AbstractGroup;
-import ottop.sudoku.board.Coord;
+import ottop.sudoku.board.Topology;
 import ottop.sudoku.explain.Explanation;
 import ottop.sudoku.explain.SimpleEliminationReason;
 import ottop.sudoku.puzzle.ISudoku;
@@ -10,32 +9,94 @@ import java.util.*;
 
 public class BasicEliminationEliminator extends Eliminator {
 
-    public BasicEliminationEliminator(ISudoku myPuzzle, Map<Coord, Set<Integer>> candidatesPerCell, Map<Coord, List<Explanation>> removalReasons) {
-        super(myPuzzle, candidatesPerCell, removalReasons);
+    public BasicEliminationEliminator(ISudoku myPuzzle, CandidateGrid candidates, EliminationLog log) {
+        super(myPuzzle, candidates, log);
     }
 
     // This is not just eliminating, it really resets the whole set of candidates
     public boolean eliminate() {
         boolean hasEliminated = false;
-        candidatesPerCell.clear();
-        for (Coord c : myPuzzle.getAllCells()) {
-            int symbolCodeRange = myPuzzle.getSymbolCodeRange();
-            Set<Integer> possibilitiesAtCell = new TreeSet<>();
-            for (int symbolCode = 1; symbolCode < symbolCodeRange; symbolCode++) {
-                boolean isPossible = true;
-                for (AbstractGroup g : myPuzzle.getBuddyGroups(c)) {
-                    if (!g.isPossibility(symbolCode, c)) {
-                        isPossible = false;
-                        hasEliminated = true;
-                        recordEliminationReason(c,
-                                new SimpleEliminationReason(myPuzzle.symbolCodeToSymbol(symbolCode), c, g));
-                        break;
+        candidates.clear();
+        Topology topology = myPuzzle.getTopology();
+        int symbolCodeRange = myPuzzle.getSymbolCodeRange();
+        int allSymbols = CandidateGrid.fullMask(symbolCodeRange);
+
+        // symbols already placed in each group
+        int[] groupSymbols = new int[topology.getGroupCount()];
+        for (int g = 0; g < groupSymbols.length; g++) {
+            for (int cell : topology.getGroupCells(g)) {
+                int symbolCode = myPuzzle.getSymbolCodeAtCell(cell);
+                if (symbolCode != 0) groupSymbols[g] |= CandidateGrid.toMask(symbolCode);
+            }
+        }
+
+        for (int cell = 0; cell < topology.getCellCount(); cell++) {
+            int[] cellGroups = topology.getCellGroups(cell);
+            int possibilitiesAtCell = allSymbols;
+            if (myPuzzle.getSymbolCodeAtCell(cell) != 0) {
+                // occupied cells have no candidates at all
+                possibilitiesAtCell = 0;
+                if (cellGroups.length > 0) {
+                    hasEliminated = true;
+                    if (isExplaining()) {
+                        for (int symbolCode = 1; symbolCode < symbolCodeRange; symbolCode++) {
+                            recordElimination(cell, symbolCode, cellGroups[0]);
+                        }
+                    }
+                }
+            } else {
+                int seen = 0;
+                for (int g : cellGroups) {
+                    seen |= groupSymbols[g];
+                }
+                possibilitiesAtCell &= ~seen;
+                if (seen != 0) hasEliminated = true;
+
+                // report each removed symbol against the first group that has it
+                if (isExplaining()) {
+                    for (int m = seen; m != 0; m &= m - 1) {
+                        int symbolMask = Integer.lowestOneBit(m);
+                        for (int g : cellGroups) {
+                            if ((groupSymbols[g] & symbolMask) != 0) {
+                                recordElimination(cell, Integer.numberOfTrailingZeros(m) + 1, g);
+                                break;
+                            }
+                        }
                     }
                 }
-                if (isPossible) possibilitiesAtCell.add(symbolCode);
             }
-            candidatesPerCell.put(c, possibilitiesAtCell);
+            candidates.setMask(cell, possibilitiesAtCell);
         }
         return hasEliminated;
     }
-}
\ No newline at end of file
+
+    // A symbol was placed at the cell: it has no candidates left and the peers
+    // in its groups lose the symbol. Returns true if anything was removed.
+    public boolean eliminateMove(int cell, int symbolCode) {
+        Topology topology = myPuzzle.getTopology();
+        int[] cellGroups = topology.getCellGroups(cell);
+        if (cellGroups.length == 0) return candidates.removeCandidates(cell, candidates.getMask(cell)) != 0;
+
+        // logged as eliminate() does for occupied cells
+        boolean hasEliminated = false;
+        for (int m = candidates.getMask(cell); m != 0; m &= m - 1) {
+            int s = Integer.numberOfTrailingZeros(m) + 1;
+            if (removeCandidates(cell, CandidateGrid.toMask(s), s, cellGroups[0])) hasEliminated = true;
+        }
+
+        int symbolMask = CandidateGrid.toMask(symbolCode);
+        for (int g : cellGroups) {
+            for (int peer : topology.getGroupCells(g)) {
+                if (removeCandidates(peer, symbolMask, symbolCode, g)) hasEliminated = true;
+            }
+        }
+        return hasEliminated;
+    }
+
+    // Records are {symbol code, group that has the symbol}
+    @Override
+    protected Explanation explain(int cell, int[] data) {
+        return new SimpleEliminationReason(myPuzzle.symbolCodeToSymbol(data[0]),
+                myPuzzle.getTopology().getCoord(cell), myPuzzle.getGroups().get(data[1]));
+    }
+}
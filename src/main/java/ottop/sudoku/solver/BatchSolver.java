@@ -0,0 +1,159 @@
+package ottop.sudoku.solver;
+
+import ottop.sudoku.puzzle.ISudoku;
+import ottop.sudoku.reader.SudokuReader;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// Runs one function over all puzzles of a reader on a pool of threads. Every worker
+// thread gets its own instance of the function from the factory, so it can keep
+// (non thread-safe) solver state between puzzles. Puzzles are read and results are
+// handed out on the calling thread, either in reader order or as they finish. Only
+// a limited number of puzzles is in flight at any time so huge files stream through.
+
+public class BatchSolver<R> {
+    private final Supplier<Function<ISudoku, R>> workerFactory;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private boolean ordered = true;
+
+    public BatchSolver(Supplier<Function<ISudoku, R>> workerFactory) {
+        this.workerFactory = workerFactory;
+    }
+
+    // Rates every puzzle as SudokuSolver.assessDifficulty does, -1 if not solved.
+    // Each worker thread keeps one solver for all its puzzles.
+    public static BatchSolver<Integer> difficultyRater() {
+        return new BatchSolver<>(() -> new SudokuSolver().setSmartest()::rate);
+    }
+
+    // Same, but only rates puzzles not seen before
+    public static BatchSolver<Integer> difficultyRater(SolveResultCache cache) {
+        return new BatchSolver<>(() -> p -> cache.get(p).getRating());
+    }
+
+    public BatchSolver<R> setParallelism(int parallelism) {
+        if (parallelism < 1) throw new IllegalArgumentException("Parallelism must be at least 1");
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    // Results in reader order (default) or as soon as they are done
+    public BatchSolver<R> setOrdered(boolean onOff) {
+        ordered = onOff;
+        return this;
+    }
+
+    public Stats run(SudokuReader reader, BiConsumer<ISudoku, R> results) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return new Run(pool, results).readAll(reader);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    public static class Stats {
+        private final long puzzleCount;
+        private final Duration elapsed;
+
+        Stats(long puzzleCount, Duration elapsed) {
+            this.puzzleCount = puzzleCount;
+            this.elapsed = elapsed;
+        }
+
+        public long getPuzzleCount() {
+            return puzzleCount;
+        }
+
+        public Duration getElapsed() {
+            return elapsed;
+        }
+
+        public double getPuzzlesPerSecond() {
+            long nanos = Math.max(1, elapsed.toNanos());
+            return puzzleCount * 1e9 / nanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d puzzles in %.3f secs (%.1f/sec)",
+                    puzzleCount, elapsed.toMillis() / 1000.0, getPuzzlesPerSecond());
+        }
+    }
+
+    private static class Done<R> {
+        final long sequenceNo;
+        final ISudoku puzzle;
+        final R result;
+
+        Done(long sequenceNo, ISudoku puzzle, R result) {
+            this.sequenceNo = sequenceNo;
+            this.puzzle = puzzle;
+            this.result = result;
+        }
+    }
+
+    // State of a single run over a reader
+    private class Run {
+        private final CompletionService<Done<R>> completed;
+        private final ThreadLocal<Function<ISudoku, R>> workers = ThreadLocal.withInitial(workerFactory);
+        private final BiConsumer<ISudoku, R> results;
+        private final Map<Long, Done<R>> finishedEarly = new HashMap<>(); // ordered mode only
+        private final int maxInFlight = parallelism * 16;
+        private long submitted = 0;
+        private long emitted = 0;
+
+        Run(ExecutorService pool, BiConsumer<ISudoku, R> results) {
+            this.completed = new ExecutorCompletionService<>(pool);
+            this.results = results;
+        }
+
+        Stats readAll(SudokuReader reader) throws IOException {
+            Instant start = Instant.now();
+            while (reader.hasNext()) {
+                ISudoku p = reader.next();
+                long sequenceNo = submitted++;
+                completed.submit(() -> new Done<>(sequenceNo, p, workers.get().apply(p)));
+
+                while (submitted - emitted >= maxInFlight) takeOne();
+            }
+            while (emitted < submitted) takeOne();
+
+            return new Stats(submitted, Duration.between(start, Instant.now()));
+        }
+
+        private void takeOne() {
+            Done<R> done;
+            try {
+                done = completed.take().get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while solving batch", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Solving a puzzle failed", e.getCause());
+            }
+
+            if (!ordered) {
+                emit(done);
+                return;
+            }
+            finishedEarly.put(done.sequenceNo, done);
+            while ((done = finishedEarly.remove(emitted)) != null) {
+                emit(done);
+            }
+        }
+
+        private void emit(Done<R> done) {
+            emitted++;
+            results.accept(done.puzzle, done.result);
+        }
+    }
+}
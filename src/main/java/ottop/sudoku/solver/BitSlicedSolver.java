@@ -0,0 +1,234 @@
+package ottop.sudoku.solver;
+
+import ottop.sudoku.board.Topology;
+import ottop.sudoku.puzzle.StandardSudoku;
+import ottop.sudoku.reader.SudokuFileReader;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+// Solves standard 9x9 puzzles 64 at a time with naked and hidden singles, for grading
+// big files where most puzzles need nothing more. Every puzzle is a lane: bit i of
+// each long is about puzzle i. Per cell and symbol one long tells in which puzzles
+// the symbol is still possible there, so counting the candidates of a cell or the
+// places of a symbol in a group is done for all 64 puzzles with a few bit operations.
+//
+// Puzzles that get stuck continue from what the singles placed, first with
+// SudokuSolver (smartest), then brute force. A lane that runs into a contradiction
+// has no solution, singles never remove a right candidate.
+//
+// Instances keep their state in arrays and are reusable, but not thread-safe.
+
+public class BitSlicedSolver {
+    public static final int LANES = 64;
+    private static final int CELLS = 81;
+    private static final int SYMBOLS = 9;
+
+    private final Topology topology = new StandardSudoku("Empty", new byte[CELLS]).getTopology();
+    private final int groupCount = topology.getGroupCount();
+
+    private final long[] candidates = new long[CELLS * SYMBOLS]; // cell * 9 + symbolCode - 1 -> lanes
+    private final long[] cellPlaced = new long[CELLS]; // lanes with a symbol at the cell
+    private final long[] groupPlaced = new long[groupCount * SYMBOLS]; // lanes with the symbol in the group
+    private long active; // lanes in use
+    private long broken; // lanes with a contradiction
+
+    private final byte[][] batch = new byte[LANES][CELLS];
+    private final BruteForceSolver bruteForce = new BruteForceSolver(topology, SYMBOLS + 1);
+    private long bySingles = 0;
+    private long byFallback = 0;
+    private long unsolvable = 0;
+
+    // Boards are symbol codes by cell index, 0 for empty. Returns the lanes (bit i
+    // for boards[i]) that the singles solve, getBoard has what they placed.
+    public long solveSingles(byte[][] boards, int count) {
+        if (count < 0 || count > LANES || count > boards.length)
+            throw new IllegalArgumentException("Between 0 and " + LANES + " boards at a time");
+
+        active = count == LANES ? -1L : (1L << count) - 1;
+        broken = 0;
+        Arrays.fill(candidates, active);
+        Arrays.fill(cellPlaced, 0);
+        Arrays.fill(groupPlaced, 0);
+
+        for (int lane = 0; lane < count; lane++) {
+            byte[] board = boards[lane];
+            if (board.length != CELLS) throw new IllegalArgumentException("Only 9x9 boards");
+            for (int cell = 0; cell < CELLS; cell++) {
+                int symbolCode = board[cell];
+                if (symbolCode < 0 || symbolCode > SYMBOLS)
+                    throw new IllegalArgumentException("Not a symbol code: " + symbolCode);
+                if (symbolCode != 0) place(cell, symbolCode - 1, 1L << lane);
+            }
+        }
+
+        boolean progress = true;
+        while (progress) {
+            progress = nakedSingles();
+            if (hiddenSingles()) progress = true;
+        }
+
+        long solved = active & ~broken;
+        for (int cell = 0; cell < CELLS; cell++) solved &= cellPlaced[cell];
+        return solved;
+    }
+
+    // Lanes found to have no solution by the last solveSingles
+    public long getBroken() {
+        return broken;
+    }
+
+    // The board of a lane after the last solveSingles, 0 where nothing was placed
+    public int[] getBoard(int lane) {
+        long bit = 1L << lane;
+        int[] board = new int[CELLS];
+        for (int cell = 0; cell < CELLS; cell++) {
+            if ((cellPlaced[cell] & bit) == 0) continue;
+            for (int s = 0; s < SYMBOLS; s++) {
+                if ((candidates[cell * SYMBOLS + s] & bit) != 0) board[cell] = s + 1;
+            }
+        }
+        return board;
+    }
+
+    // Solve every puzzle of the file, 64 at a time. Results are the givens (a copy the
+    // consumer may keep) and the solution (null if there is none), in file order.
+    // Returns the number of puzzles.
+    public long solveAll(SudokuFileReader reader, BiConsumer<byte[], int[]> results) throws IOException {
+        long count = 0;
+        int n = 0;
+        while (reader.hasNext()) {
+            System.arraycopy(reader.getCells(), 0, batch[n++], 0, CELLS);
+            if (n == LANES) {
+                solveBatch(n, results);
+                count += n;
+                n = 0;
+            }
+        }
+        if (n > 0) solveBatch(n, results);
+        return count + n;
+    }
+
+    public long getSolvedBySingles() {
+        return bySingles;
+    }
+
+    public long getSolvedByFallback() {
+        return byFallback;
+    }
+
+    public long getUnsolvable() {
+        return unsolvable;
+    }
+
+    private void solveBatch(int count, BiConsumer<byte[], int[]> results) {
+        long solved = solveSingles(batch, count);
+        for (int lane = 0; lane < count; lane++) {
+            long bit = 1L << lane;
+            int[] solution = null;
+            if ((solved & bit) != 0) {
+                solution = getBoard(lane);
+                bySingles++;
+            } else if ((broken & bit) == 0) {
+                solution = fallback(getBoard(lane));
+                if (solution != null) byFallback++;
+            }
+            if (solution == null) unsolvable++;
+            results.accept(batch[lane].clone(), solution);
+        }
+    }
+
+    private int[] fallback(int[] board) {
+        byte[] symbolCodes = new byte[CELLS];
+        for (int cell = 0; cell < CELLS; cell++) symbolCodes[cell] = (byte) board[cell];
+
+        StandardSudoku p = new StandardSudoku("Fallback", symbolCodes);
+        SudokuSolver solver = new SudokuSolver(p);
+        solver.setSmartest();
+        if (solver.solve() && p.isSolved()) {
+            int[] solution = new int[CELLS];
+            for (int cell = 0; cell < CELLS; cell++) solution[cell] = p.getSymbolCodeAtCell(cell);
+            return solution;
+        }
+        return bruteForce.findSolution(symbolCodes);
+    }
+
+    // Put symbol s (0-based) at the cell in the given lanes
+    private void place(int cell, int s, long lanes) {
+        lanes &= ~cellPlaced[cell];
+        if (lanes == 0) return;
+
+        int base = cell * SYMBOLS;
+        broken |= lanes & ~candidates[base + s];
+        cellPlaced[cell] |= lanes;
+        for (int t = 0; t < SYMBOLS; t++) {
+            if (t != s) candidates[base + t] &= ~lanes;
+        }
+        for (int g : topology.getCellGroups(cell)) {
+            broken |= groupPlaced[g * SYMBOLS + s] & lanes;
+            groupPlaced[g * SYMBOLS + s] |= lanes;
+        }
+        for (int peer : topology.getCellPeers(cell)) {
+            candidates[peer * SYMBOLS + s] &= ~lanes;
+        }
+    }
+
+    // Cells with one candidate left, per lane
+    private boolean nakedSingles() {
+        boolean progress = false;
+        for (int cell = 0; cell < CELLS; cell++) {
+            long open = active & ~broken & ~cellPlaced[cell];
+            if (open == 0) continue;
+
+            int base = cell * SYMBOLS;
+            long once = 0;
+            long twice = 0;
+            for (int s = 0; s < SYMBOLS; s++) {
+                long c = candidates[base + s];
+                twice |= once & c;
+                once |= c;
+            }
+            broken |= open & ~once; // no candidates left
+
+            long single = open & once & ~twice;
+            if (single == 0) continue;
+            progress = true;
+            for (int s = 0; s < SYMBOLS; s++) {
+                long lanes = single & candidates[base + s];
+                if (lanes != 0) place(cell, s, lanes);
+            }
+        }
+        return progress;
+    }
+
+    // Symbols with one place left in a group, per lane
+    private boolean hiddenSingles() {
+        boolean progress = false;
+        for (int g = 0; g < groupCount; g++) {
+            int[] cells = topology.getGroupCells(g);
+            for (int s = 0; s < SYMBOLS; s++) {
+                long open = active & ~broken & ~groupPlaced[g * SYMBOLS + s];
+                if (open == 0) continue;
+
+                long once = 0;
+                long twice = 0;
+                for (int cell : cells) {
+                    long c = candidates[cell * SYMBOLS + s] & ~cellPlaced[cell];
+                    twice |= once & c;
+                    once |= c;
+                }
+                broken |= open & ~once; // symbol can't go anywhere in the group
+
+                long hidden = open & once & ~twice;
+                if (hidden == 0) continue;
+                progress = true;
+                for (int cell : cells) {
+                    long lanes = hidden & candidates[cell * SYMBOLS + s] & ~cellPlaced[cell];
+                    if (lanes != 0) place(cell, s, lanes);
+                }
+            }
+        }
+        return progress;
+    }
+}
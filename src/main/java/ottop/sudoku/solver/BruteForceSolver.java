@@ -0,0 +1,190 @@
+package ottop.sudoku.solver;
+
+import ottop.sudoku.board.Topology;
+import ottop.sudoku.puzzle.ISudoku;
+
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+
+// Plain search for when logic runs out: bitmask backtracking over the groups of any
+// puzzle type (standard, NRC, 10x10, ...). At every step it first looks for a forced
+// placement (a cell with one candidate or a symbol with one place left in a group),
+// otherwise branches on the cell with the fewest candidates (minimum remaining values).
+//
+// Instances keep their search state in arrays and are reusable for puzzles of the
+// same shape, but not thread-safe.
+
+public class BruteForceSolver {
+    private final Topology topology;
+    private final int allSymbols;
+
+    private final int[] cellSymbolCodes; // current (partial) board, by cell index
+    private final int[] groupSymbols; // symbols placed per group, as mask
+    private final int[] cellCandidates; // scratch per search step
+
+    private int[] solution;
+    private int solutionCount;
+    private int solutionLimit;
+
+    public BruteForceSolver(Topology topology, int symbolCodeRange) {
+        this.topology = topology;
+        this.allSymbols = CandidateGrid.fullMask(symbolCodeRange);
+        this.cellSymbolCodes = new int[topology.getCellCount()];
+        this.groupSymbols = new int[topology.getGroupCount()];
+        this.cellCandidates = new int[topology.getCellCount()];
+    }
+
+    public BruteForceSolver(ISudoku p) {
+        this(p.getTopology(), p.getSymbolCodeRange());
+    }
+
+    // Symbol code for every cell index of a solution, or null if there is none.
+    // The puzzle itself is not changed.
+    public int[] findSolution(ISudoku p) {
+        run(p::getSymbolCodeAtCell, 1);
+        return solutionCount > 0 ? solution : null;
+    }
+
+    // Number of solutions, but stops counting once limit is reached. A limit
+    // of 2 is enough to tell unique puzzles from ambiguous ones.
+    public int countSolutions(ISudoku p, int limit) {
+        if (limit < 1) throw new IllegalArgumentException("Limit must be at least 1");
+        run(p::getSymbolCodeAtCell, limit);
+        return solutionCount;
+    }
+
+    public boolean hasUniqueSolution(ISudoku p) {
+        return countSolutions(p, 2) == 1;
+    }
+
+    // Same for a bare board of symbol codes by cell index (0 for empty), as
+    // SudokuFileReader produces, without building a puzzle first
+    public int[] findSolution(byte[] symbolCodes) {
+        run(cell -> symbolCodes[cell], 1);
+        return solutionCount > 0 ? solution : null;
+    }
+
+    public int countSolutions(byte[] symbolCodes, int limit) {
+        if (limit < 1) throw new IllegalArgumentException("Limit must be at least 1");
+        run(cell -> symbolCodes[cell], limit);
+        return solutionCount;
+    }
+
+    // Fill in the puzzle with a solution, returns false if there is none
+    public boolean solve(ISudoku p) {
+        int[] result = findSolution(p);
+        if (result == null) return false;
+
+        for (int cell = 0; cell < result.length; cell++) {
+            if (!p.isOccupied(topology.getCoord(cell))) {
+                p.doMove(topology.getCoord(cell), p.symbolCodeToSymbol(result[cell]));
+            }
+        }
+        return true;
+    }
+
+    private void run(IntUnaryOperator board, int limit) {
+        solution = null;
+        solutionCount = 0;
+        solutionLimit = limit;
+
+        if (load(board)) search();
+    }
+
+    // Copy the board, returns false if it already breaks a group
+    private boolean load(IntUnaryOperator board) {
+        Arrays.fill(groupSymbols, 0);
+        for (int cell = 0; cell < cellSymbolCodes.length; cell++) {
+            int symbolCode = board.applyAsInt(cell);
+            cellSymbolCodes[cell] = symbolCode;
+            if (symbolCode != 0) {
+                int symbolMask = CandidateGrid.toMask(symbolCode);
+                for (int g : topology.getCellGroups(cell)) {
+                    if ((groupSymbols[g] & symbolMask) != 0) return false;
+                    groupSymbols[g] |= symbolMask;
+                }
+            }
+        }
+        return true;
+    }
+
+    // Returns true when enough solutions have been found to stop
+    private boolean search() {
+        int bestCell = -1;
+        int bestMask = 0;
+        int bestCount = Integer.MAX_VALUE;
+
+        for (int cell = 0; cell < cellSymbolCodes.length; cell++) {
+            if (cellSymbolCodes[cell] != 0) continue;
+
+            int used = 0;
+            for (int g : topology.getCellGroups(cell)) {
+                used |= groupSymbols[g];
+            }
+            int mask = allSymbols & ~used;
+            int count = Integer.bitCount(mask);
+            if (count == 0) return false; // dead end
+
+            cellCandidates[cell] = mask;
+            if (count < bestCount) {
+                bestCell = cell;
+                bestMask = mask;
+                bestCount = count;
+                if (count == 1) break;
+            }
+        }
+
+        if (bestCell < 0) {
+            // no empty cells left
+            if (solutionCount++ == 0) solution = cellSymbolCodes.clone();
+            return solutionCount >= solutionLimit;
+        }
+
+        if (bestCount > 1) {
+            // all candidates are known now, look for symbols with one place left
+            for (int g = 0; g < groupSymbols.length; g++) {
+                int once = 0;
+                int twice = 0;
+                for (int cell : topology.getGroupCells(g)) {
+                    if (cellSymbolCodes[cell] == 0) {
+                        int mask = cellCandidates[cell];
+                        twice |= once & mask;
+                        once |= mask;
+                    }
+                }
+                int needed = allSymbols & ~groupSymbols[g];
+                if ((needed & ~once) != 0) return false; // symbol cannot go anywhere in this group
+
+                int hidden = needed & once & ~twice;
+                if (hidden != 0) {
+                    int symbolMask = Integer.lowestOneBit(hidden);
+                    for (int cell : topology.getGroupCells(g)) {
+                        if (cellSymbolCodes[cell] == 0 && (cellCandidates[cell] & symbolMask) != 0) {
+                            bestCell = cell;
+                            break;
+                        }
+                    }
+                    bestMask = symbolMask;
+                    break;
+                }
+            }
+        }
+
+        int[] groups = topology.getCellGroups(bestCell);
+        while (bestMask != 0) {
+            int symbolMask = Integer.lowestOneBit(bestMask);
+            bestMask &= ~symbolMask;
+
+            cellSymbolCodes[bestCell] = Integer.numberOfTrailingZeros(symbolMask) + 1;
+            for (int g : groups) groupSymbols[g] |= symbolMask;
+
+            boolean done = search();
+
+            for (int g : groups) groupSymbols[g] &= ~symbolMask;
+            cellSymbolCodes[bestCell] = 0;
+
+            if (done) return true;
+        }
+        return false;
+    }
+}
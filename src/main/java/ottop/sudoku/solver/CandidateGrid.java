@@ -0,0 +1,181 @@
+package ottop.sudoku.solver;
+
+import ottop.sudoku.board.Topology;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.TreeSet;
+
+// Candidates of all cells of a puzzle, kept as one bitmask per cell index (see
+// ISudoku.getCellIndex). Bit (symbolCode - 1) is set when that symbol code is
+// still possible at the cell.
+//
+// Every removal is also pushed on a trail of (cell, removed mask) pairs so that
+// the solver can roll back to an earlier trail size when a move is undone.
+//
+// Any change to a cell (removal, restore, reset) stamps the (group, symbol) pairs
+// of that cell with a new change count. An eliminator remembers the change count
+// at the start of its pass and only needs to look at what was stamped after it.
+//
+// For every (group, symbol) the grid also keeps the positions (index in the group's
+// cells) where the symbol is still a candidate, as a bitmask. One bit left means a
+// hidden single, no bits means the symbol is either placed or cannot go anywhere.
+
+public class CandidateGrid {
+    private final Topology topology;
+    private final int symbolCount;
+    private final int[] masks;
+    private int[] trail = new int[64];
+    private int trailSize = 0;
+
+    private long changeCount = 0;
+    private final long[] groupChanged; // by group
+    private final long[] groupSymbolChanged; // by group * symbolCount + (symbolCode - 1)
+    private final int[] groupSymbolPositions; // same index, bit per position in the group
+
+    public CandidateGrid(Topology topology, int symbolCodeRange) {
+        this.topology = topology;
+        this.symbolCount = symbolCodeRange - 1;
+        this.masks = new int[topology.getCellCount()];
+        this.groupChanged = new long[topology.getGroupCount()];
+        this.groupSymbolChanged = new long[topology.getGroupCount() * symbolCount];
+        this.groupSymbolPositions = new int[topology.getGroupCount() * symbolCount];
+    }
+
+    public static int toMask(int symbolCode) {
+        return 1 << (symbolCode - 1);
+    }
+
+    // Mask with all symbol codes 1 .. symbolCodeRange-1 set
+    public static int fullMask(int symbolCodeRange) {
+        return (1 << (symbolCodeRange - 1)) - 1;
+    }
+
+    // Lowest symbol code in the mask, or 0 if the mask is empty
+    public static int firstSymbolCode(int mask) {
+        return mask == 0 ? 0 : Integer.numberOfTrailingZeros(mask) + 1;
+    }
+
+    public static Set<Integer> toSymbolCodes(int mask) {
+        Set<Integer> result = new TreeSet<>();
+        while (mask != 0) {
+            result.add(Integer.numberOfTrailingZeros(mask) + 1);
+            mask &= mask - 1;
+        }
+        return result;
+    }
+
+    public int getCellCount() {
+        return masks.length;
+    }
+
+    public int getMask(int cell) {
+        return masks[cell];
+    }
+
+    public void setMask(int cell, int mask) {
+        int changed = masks[cell] ^ mask;
+        masks[cell] = mask;
+        if (changed != 0) markChanged(cell, changed);
+    }
+
+    public int getCount(int cell) {
+        return Integer.bitCount(masks[cell]);
+    }
+
+    public boolean isCandidate(int cell, int symbolCode) {
+        return (masks[cell] & toMask(symbolCode)) != 0;
+    }
+
+    // Returns true if the symbol code was a candidate before
+    public boolean removeCandidate(int cell, int symbolCode) {
+        return removeCandidates(cell, toMask(symbolCode)) != 0;
+    }
+
+    // Returns the symbol codes (as mask) that were actually removed
+    public int removeCandidates(int cell, int mask) {
+        int removed = masks[cell] & mask;
+        if (removed != 0) {
+            masks[cell] &= ~mask;
+            markChanged(cell, removed);
+            if (trailSize == trail.length) trail = Arrays.copyOf(trail, trailSize * 2);
+            trail[trailSize++] = cell;
+            trail[trailSize++] = removed;
+        }
+        return removed;
+    }
+
+    public int getTrailSize() {
+        return trailSize;
+    }
+
+    // Put back all candidates removed since the trail had the given size
+    public void undoTo(int size) {
+        while (trailSize > size) {
+            int removed = trail[--trailSize];
+            int cell = trail[--trailSize];
+            int before = masks[cell];
+            masks[cell] |= removed;
+            markChanged(cell, masks[cell] ^ before);
+        }
+    }
+
+    public Set<Integer> getCandidates(int cell) {
+        return toSymbolCodes(masks[cell]);
+    }
+
+    public void clear() {
+        Arrays.fill(masks, 0);
+        trailSize = 0;
+        changeCount++;
+        Arrays.fill(groupChanged, changeCount);
+        Arrays.fill(groupSymbolChanged, changeCount);
+        Arrays.fill(groupSymbolPositions, 0);
+    }
+
+    public long getChangeCount() {
+        return changeCount;
+    }
+
+    // Did any candidate in the group change after the given change count
+    public boolean isChangedSince(int group, long since) {
+        return groupChanged[group] > since;
+    }
+
+    public boolean isChangedSince(int group, int symbolCode, long since) {
+        return groupSymbolChanged[group * symbolCount + symbolCode - 1] > since;
+    }
+
+    // Positions in the group (see Topology.getGroupCells) where the symbol is a candidate
+    public int getPositions(int group, int symbolCode) {
+        return groupSymbolPositions[group * symbolCount + symbolCode - 1];
+    }
+
+    // Groups with any change after the given change count, ascending
+    public int[] getChangedGroups(long since) {
+        int[] changed = new int[groupChanged.length];
+        int n = 0;
+        for (int g = 0; g < groupChanged.length; g++) {
+            if (groupChanged[g] > since) changed[n++] = g;
+        }
+        return Arrays.copyOf(changed, n);
+    }
+
+    // The symbols in the mask were flipped (added or removed) at the cell
+    private void markChanged(int cell, int symbolMask) {
+        changeCount++;
+        int[] groups = topology.getCellGroups(cell);
+        int[] positions = topology.getCellGroupPositions(cell);
+        for (int i = 0; i < groups.length; i++) {
+            int g = groups[i];
+            int positionBit = 1 << positions[i];
+            groupChanged[g] = changeCount;
+            int base = g * symbolCount;
+            for (int m = symbolMask; m != 0; m &= m - 1) {
+                int index = base + Integer.numberOfTrailingZeros(m);
+                groupSymbolChanged[index] = changeCount;
+                groupSymbolPositions[index] ^= positionBit;
+            }
+        }
+    }
+}
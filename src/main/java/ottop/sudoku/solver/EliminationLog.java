@@ -0,0 +1,121 @@
+package ottop.sudoku.solver;
+
+import ottop.sudoku.explain.Explanation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+// The reasons for candidate eliminations, per cell index. Eliminators log a record
+// per cell: which eliminator it was and a few ints of its own (groups, symbol masks,
+// positions). Only when the reasons of a cell are asked for are its records turned
+// into Explanations, by the eliminator that logged them. Records can also hold a
+// ready made Explanation, for eliminators that don't do their own records.
+//
+// Records are kept in arrays, most recent last, with a chain per cell. Like the
+// trail of the CandidateGrid the log can be cut back to an earlier size when
+// eliminations are undone.
+
+public class EliminationLog {
+    private final int[] lastRecord; // by cell, -1 if none
+
+    // by record
+    private int[] recordCell = new int[256];
+    private int[] previousRecord = new int[256]; // for the same cell, -1 if none
+    private int[] dataStart = new int[257];
+    private Eliminator[] sources = new Eliminator[256];
+    private Explanation[] explanations = new Explanation[256]; // ready made ones
+    private int size = 0;
+
+    private int[] data = new int[1024];
+
+    public EliminationLog(int cellCount) {
+        lastRecord = new int[cellCount];
+        Arrays.fill(lastRecord, -1);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        truncate(0);
+    }
+
+    // Drop all records made after the log had the given size
+    public void truncate(int newSize) {
+        while (size > newSize) {
+            size--;
+            lastRecord[recordCell[size]] = previousRecord[size];
+            sources[size] = null;
+            explanations[size] = null;
+        }
+    }
+
+    // Record to be explained later by source.explain
+    void add(Eliminator source, int cell, int[] recordData) {
+        int record = newRecord(cell);
+        sources[record] = source;
+        int start = dataStart[record];
+        if (start + recordData.length > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, start + recordData.length));
+        }
+        System.arraycopy(recordData, 0, data, start, recordData.length);
+        dataStart[record + 1] = start + recordData.length;
+    }
+
+    // Same for two values, without an array
+    void add(Eliminator source, int cell, int data0, int data1) {
+        int record = newRecord(cell);
+        sources[record] = source;
+        int start = dataStart[record];
+        if (start + 2 > data.length) data = Arrays.copyOf(data, Math.max(data.length * 2, start + 2));
+        data[start] = data0;
+        data[start + 1] = data1;
+        dataStart[record + 1] = start + 2;
+    }
+
+    void add(Explanation explanation, int cell) {
+        int record = newRecord(cell);
+        explanations[record] = explanation;
+        dataStart[record + 1] = dataStart[record];
+    }
+
+    // Explanations for the cell, oldest first, combined as Explanation.combine does.
+    // The ones from records are created anew on every call.
+    public List<Explanation> getExplanations(int cell) {
+        List<Integer> records = new ArrayList<>();
+        for (int record = lastRecord[cell]; record >= 0; record = previousRecord[record]) {
+            records.add(record);
+        }
+        Collections.reverse(records);
+
+        List<Explanation> result = new ArrayList<>();
+        for (int record : records) {
+            Explanation explanation = explanations[record];
+            if (explanation == null) {
+                explanation = sources[record].explain(cell,
+                        Arrays.copyOfRange(data, dataStart[record], dataStart[record + 1]));
+            }
+            result = explanation.combine(result);
+        }
+        return result;
+    }
+
+    private int newRecord(int cell) {
+        if (size == recordCell.length) {
+            int capacity = size * 2;
+            recordCell = Arrays.copyOf(recordCell, capacity);
+            previousRecord = Arrays.copyOf(previousRecord, capacity);
+            dataStart = Arrays.copyOf(dataStart, capacity + 1);
+            sources = Arrays.copyOf(sources, capacity);
+            explanations = Arrays.copyOf(explanations, capacity);
+        }
+        int record = size++;
+        recordCell[record] = cell;
+        previousRecord[record] = lastRecord[cell];
+        lastRecord[cell] = record;
+        return record;
+    }
+}
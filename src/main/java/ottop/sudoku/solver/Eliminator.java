@@ -1,73 +1,100 @@
 package ottop.sudoku.solver;
 
-// will keep map of candidates
+// An elimination technique: removes candidates from the grid and records why.
+// Subclasses can live outside this package and be plugged into SudokuSolver.
+// The records they log (recordElimination, removeCandidates) only become an
+// Explanation through their own explain, when the reasons are asked for.
 
 import ottop.sudoku.board.Coord;
 import ottop.sudoku.explain.Explanation;
 import ottop.sudoku.puzzle.ISudoku;
 
-import java.util.HashSet;
-import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 public abstract class Eliminator {
-    ISudoku myPuzzle;
-    Map<Coord, Set<Integer>> candidatesPerCell;
-    Map<Coord, List<Explanation>> removalReasons;
+    protected final ISudoku myPuzzle;
+    protected final CandidateGrid candidates;
+    protected final EliminationLog log; // null when no reasons are kept
 
-    Eliminator(ISudoku myPuzzle, Map<Coord, Set<Integer>> candidatesPerCell, Map<Coord, List<Explanation>> removalReasons)
+    // Change count of the candidates when the last pass started, see CandidateGrid
+    private long lastPass = -1;
+
+    protected Eliminator(ISudoku myPuzzle, CandidateGrid candidates, EliminationLog log)
     {
         this.myPuzzle = myPuzzle;
-        this.candidatesPerCell = candidatesPerCell;
-        this.removalReasons = removalReasons;
+        this.candidates = candidates;
+        this.log = log;
+    }
+
+    protected boolean isExplaining() {
+        return log != null;
+    }
+
+    protected void recordEliminationReason(Coord coord, Explanation reason) {
+        if (log != null) log.add(reason, myPuzzle.getCellIndex(coord));
+    }
+
+    // Log a record for the cell, turned into an Explanation by explain() only
+    // when the reasons are asked for
+    protected void recordElimination(int cell, int... data) {
+        if (log != null) log.add(this, cell, data);
+    }
+
+    // Remove candidates from the cell, logging a record if any were still there
+    protected boolean removeCandidates(int cell, int symbolCodeMask, int... data) {
+        if (candidates.removeCandidates(cell, symbolCodeMask) == 0) return false;
+        recordElimination(cell, data);
+        return true;
     }
 
-    void recordEliminationReason(Coord coord, Explanation reason) {
-        removalReasons.put(coord,
-                reason.combine(removalReasons.get(coord)));
+    // Same for records of two values, without a varargs array
+    protected boolean removeCandidates(int cell, int symbolCodeMask, int data0, int data1) {
+        if (candidates.removeCandidates(cell, symbolCodeMask) == 0) return false;
+        if (log != null) log.add(this, cell, data0, data1);
+        return true;
     }
 
-    boolean removePossibility(int symbolCode, Set<Coord> coords, Explanation reason) {
+    // The Explanation for a record this eliminator logged for the cell
+    protected abstract Explanation explain(int cell, int[] data);
+
+    protected boolean removePossibility(int symbolCode, Set<Coord> coords, Explanation reason) {
         boolean anyRemoved = false;
         for (Coord c : coords) {
-            boolean removedAtCurrentCoord = false;
-            Set<Integer> currentPossibilities = candidatesPerCell.get(c);
-            if (currentPossibilities != null) {
-                if (currentPossibilities.remove(symbolCode)) {
-                    anyRemoved = true;
-                    removedAtCurrentCoord = true;
-                }
-            }
-            if (removedAtCurrentCoord) {
+            if (candidates.removeCandidate(myPuzzle.getCellIndex(c), symbolCode)) {
+                anyRemoved = true;
                 recordEliminationReason(c, reason);
             }
         }
         return anyRemoved;
     }
 
-    boolean removePossibilities(Set<Integer> symbolCodes, Coord coord, Explanation reason) {
-        boolean anyRemoved = false;
-        for (int symbolCode : symbolCodes) {
-            Set<Integer> currentPossibilities = candidatesPerCell.get(coord);
-            if (currentPossibilities != null) {
-                if (currentPossibilities.remove(symbolCode)) {
-                    anyRemoved = true;
-                }
-            }
-        }
+    protected boolean removePossibilities(int symbolCodeMask, Coord coord, Explanation reason) {
+        boolean anyRemoved = candidates.removeCandidates(myPuzzle.getCellIndex(coord), symbolCodeMask) != 0;
         if (anyRemoved) {
             recordEliminationReason(coord, reason);
         }
         return anyRemoved;
     }
 
-    Set<Integer> getCandidatesInArea(Set<Coord> subarea) {
-        Set<Integer> p = new HashSet<>();
+    protected int getCandidatesInArea(Set<Coord> subarea) {
+        int mask = 0;
         for (Coord c : subarea) {
-            p.addAll(candidatesPerCell.get(c));
+            mask |= candidates.getMask(myPuzzle.getCellIndex(c));
         }
-        return p;
+        return mask;
+    }
+
+    protected int getCandidatesAt(Coord c) {
+        return candidates.getMask(myPuzzle.getCellIndex(c));
+    }
+
+    // Start a new pass. Returns the change count of the previous one: groups and
+    // symbols that did not change since then can be skipped as they would give
+    // the same (already applied) eliminations.
+    protected long startPass() {
+        long previous = lastPass;
+        lastPass = candidates.getChangeCount();
+        return previous;
     }
 
     public abstract boolean eliminate();
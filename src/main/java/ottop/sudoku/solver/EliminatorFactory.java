@@ -0,0 +1,9 @@
+package ottop.sudoku.solver;
+
+import ottop.sudoku.puzzle.ISudoku;
+
+// Creates an elimination technique working on the given candidates, e.g. the
+// constructor of an Eliminator subclass. The log is null when no reasons are kept.
+public interface EliminatorFactory {
+    Eliminator create(ISudoku puzzle, CandidateGrid candidates, EliminationLog log);
+}
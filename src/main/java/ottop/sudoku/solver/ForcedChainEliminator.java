@@ -0,0 +1,243 @@
+package ottop.sudoku.solver;
+
+import ottop.sudoku.board.Topology;
+import ottop.sudoku.explain.Explanation;
+import ottop.sudoku.explain.ForcedChainEliminationReason;
+import ottop.sudoku.puzzle.ISudoku;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+// Forced chains: take a cell with few candidates and try each of them. Every try
+// (branch) places the symbol on a copy of the candidate masks and follows the
+// forced moves (naked and hidden singles) from there. A branch that runs into a
+// contradiction rules its symbol out. A candidate that none of the other branches
+// keep can't be right either, whichever symbol the cell gets.
+//
+// When the singles run out, a branch can do the same again on its own masks for the
+// cells with two candidates, up to a nesting depth. Cells with two candidates are
+// tried first at the top, then those with three. The cells at the top are explored
+// in parallel, each branch on its own plain int[] of masks. Following the forced
+// moves stops after a number of placements per branch or when the time for the pass
+// is up, which only means fewer conclusions: whatever a branch found so far still
+// follows from its symbol.
+
+public class ForcedChainEliminator extends Eliminator {
+    public static final int DEFAULT_DEPTH = 2;
+    public static final int DEFAULT_MAX_PLACEMENTS = 81;
+    public static final long DEFAULT_TIME_BUDGET_MILLIS = 200;
+    private static final int MAX_BRANCHES = 3;
+    private static final int PLACED = 1 << 30; // on the mask of cells with a symbol
+
+    private final Topology topology;
+    private final int allSymbols;
+    private final int depth;
+    private final int maxPlacements;
+    private final long timeBudgetNanos;
+    private boolean lastPassFinished = false; // not cut short by the time budget
+
+    ForcedChainEliminator(ISudoku myPuzzle, CandidateGrid candidates, EliminationLog log) {
+        this(myPuzzle, candidates, log, DEFAULT_DEPTH, DEFAULT_MAX_PLACEMENTS, DEFAULT_TIME_BUDGET_MILLIS);
+    }
+
+    ForcedChainEliminator(ISudoku myPuzzle, CandidateGrid candidates, EliminationLog log,
+                          int depth, int maxPlacements, long timeBudgetMillis) {
+        super(myPuzzle, candidates, log);
+        if (depth < 0) throw new IllegalArgumentException("Depth must not be negative");
+        if (maxPlacements < 1) throw new IllegalArgumentException("Branches need at least one placement");
+        this.topology = myPuzzle.getTopology();
+        this.allSymbols = CandidateGrid.fullMask(myPuzzle.getSymbolCodeRange());
+        this.depth = depth;
+        this.maxPlacements = maxPlacements;
+        this.timeBudgetNanos = timeBudgetMillis * 1_000_000;
+    }
+
+    // For SudokuSolver.addEliminator, with other limits: how deep branches nest,
+    // placements per branch and time per pass
+    public static EliminatorFactory withBudget(int depth, int maxPlacements, long timeBudgetMillis) {
+        return (p, c, log) -> new ForcedChainEliminator(p, c, log, depth, maxPlacements, timeBudgetMillis);
+    }
+
+    public boolean eliminate() {
+        long since = startPass();
+        if (lastPassFinished && since == candidates.getChangeCount()) return false; // same as last time
+
+        int cellCount = topology.getCellCount();
+        int[] start = new int[cellCount];
+        for (int cell = 0; cell < cellCount; cell++) {
+            int symbolCode = myPuzzle.getSymbolCodeAtCell(cell);
+            start[cell] = symbolCode != 0 ? CandidateGrid.toMask(symbolCode) | PLACED : candidates.getMask(cell);
+        }
+        long deadline = System.nanoTime() + timeBudgetNanos;
+        lastPassFinished = false;
+
+        for (int branches = 2; branches <= MAX_BRANCHES; branches++) {
+            int count = branches;
+            List<int[]> conclusions = IntStream.range(0, cellCount)
+                    .filter(cell -> (start[cell] & PLACED) == 0 && Integer.bitCount(start[cell]) == count)
+                    .parallel()
+                    .mapToObj(cell -> conclude(start, cell, deadline))
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+
+            // all are drawn from the same grid, so they can all be applied
+            boolean updated = false;
+            for (int[] conclusion : conclusions) {
+                int source = conclusion[0];
+                for (int i = 1; i < conclusion.length; i += 2) {
+                    int cell = conclusion[i];
+                    int removed = candidates.getMask(cell) & conclusion[i + 1];
+                    if (removed != 0 && removeCandidates(cell, removed, removed, source, start[source])) updated = true;
+                }
+            }
+            if (updated) {
+                lastPassFinished = System.nanoTime() <= deadline;
+                return true;
+            }
+        }
+        // past the deadline some branch may have stopped early, try again next time
+        lastPassFinished = System.nanoTime() <= deadline;
+        return false;
+    }
+
+    // {source cell, then pairs of cell and symbols to remove}, null if none
+    private int[] conclude(int[] start, int source, long deadline) {
+        int[] keep = branch(start, source, depth, deadline);
+        if (keep == null) return null; // no candidate works, the grid is wrong already
+
+        int[] conclusion = new int[1 + 2 * start.length];
+        conclusion[0] = source;
+        int size = 1;
+        for (int cell = 0; cell < start.length; cell++) {
+            if ((start[cell] & PLACED) != 0) continue;
+            int removed = start[cell] & ~keep[cell];
+            if (removed != 0) {
+                conclusion[size++] = cell;
+                conclusion[size++] = removed;
+            }
+        }
+        return size == 1 ? null : Arrays.copyOf(conclusion, size);
+    }
+
+    // Try every candidate of the cell. Returns the candidates per cell over the
+    // branches without contradiction, null if all of them have one.
+    private int[] branch(int[] masks, int source, int depth, long deadline) {
+        int[] keep = null;
+        for (int m = masks[source]; m != 0; m &= m - 1) {
+            int[] branchMasks = masks.clone();
+            if (!follow(branchMasks, source, Integer.lowestOneBit(m), depth, deadline)) continue;
+
+            if (keep == null) {
+                keep = branchMasks;
+            } else {
+                for (int cell = 0; cell < keep.length; cell++) keep[cell] |= branchMasks[cell];
+            }
+        }
+        return keep;
+    }
+
+    // Place the symbol and follow the moves it forces, returns false on a contradiction
+    private boolean follow(int[] masks, int cell, int symbolMask, int depth, long deadline) {
+        int[] pending = new int[masks.length * 2]; // cell, symbol mask
+        int pendingSize = 0;
+        pending[pendingSize++] = cell;
+        pending[pendingSize++] = symbolMask;
+
+        int placements = 0;
+        while (pendingSize > 0) {
+            while (pendingSize > 0) {
+                symbolMask = pending[--pendingSize];
+                cell = pending[--pendingSize];
+                if ((masks[cell] & PLACED) != 0) {
+                    if ((masks[cell] & symbolMask) == 0) return false; // two symbols forced here
+                    continue;
+                }
+                if ((masks[cell] & symbolMask) == 0) return false;
+                if (placements++ == maxPlacements || System.nanoTime() > deadline) return true;
+
+                masks[cell] = symbolMask | PLACED;
+                for (int peer : topology.getCellPeers(cell)) {
+                    int mask = masks[peer];
+                    if ((mask & PLACED) != 0) {
+                        if (mask == (symbolMask | PLACED)) return false;
+                        continue;
+                    }
+                    if ((mask & symbolMask) == 0) continue;
+                    mask &= ~symbolMask;
+                    if (mask == 0) return false;
+                    masks[peer] = mask;
+                    if ((mask & (mask - 1)) == 0 && pendingSize < pending.length) {
+                        pending[pendingSize++] = peer;
+                        pending[pendingSize++] = mask;
+                    }
+                }
+            }
+
+            // hidden singles, a symbol with one place left in a group
+            for (int g = 0; g < topology.getGroupCount() && pendingSize == 0; g++) {
+                int once = 0;
+                int twice = 0;
+                int placed = 0;
+                for (int c : topology.getGroupCells(g)) {
+                    int mask = masks[c];
+                    if ((mask & PLACED) != 0) {
+                        placed |= mask;
+                    } else {
+                        twice |= once & mask;
+                        once |= mask;
+                    }
+                }
+                int needed = allSymbols & ~placed;
+                if ((needed & ~once) != 0) return false; // a symbol can't go anywhere
+
+                int hidden = needed & once & ~twice;
+                for (int c : topology.getGroupCells(g)) {
+                    int single = (masks[c] & PLACED) == 0 ? masks[c] & hidden : 0;
+                    if (single == 0) continue;
+                    if ((single & (single - 1)) != 0) return false; // the only place for two symbols
+                    pending[pendingSize++] = c;
+                    pending[pendingSize++] = single;
+                }
+            }
+
+            // no singles left, try nested branches on the cells with two candidates
+            for (int c = 0; c < masks.length && depth > 0 && pendingSize == 0; c++) {
+                if ((masks[c] & PLACED) != 0 || Integer.bitCount(masks[c]) != 2) continue;
+                if (System.nanoTime() > deadline) return true;
+
+                int[] keep = branch(masks, c, depth - 1, deadline);
+                if (keep == null) return false;
+                for (int k = 0; k < masks.length; k++) {
+                    int mask = masks[k];
+                    if ((mask & PLACED) != 0 || (mask & ~keep[k]) == 0) continue;
+                    mask &= keep[k];
+                    if (mask == 0) return false;
+                    masks[k] = mask;
+                    if ((mask & (mask - 1)) == 0) {
+                        pending[pendingSize++] = k;
+                        pending[pendingSize++] = mask;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    // Records are {symbol codes removed as mask, cell branched on, its candidates as mask}
+    @Override
+    protected Explanation explain(int cell, int[] data) {
+        return new ForcedChainEliminationReason(toSymbols(data[0]),
+                topology.getCoord(cell),
+                topology.getCoord(data[1]),
+                toSymbols(data[2]));
+    }
+
+    private Set<String> toSymbols(int mask) {
+        Set<String> symbols = new TreeSet<>();
+        for (int symbolCode : CandidateGrid.toSymbolCodes(mask)) {
+            symbols.add(myPuzzle.symbolCodeToSymbol(symbolCode));
+        }
+        return symbols;
+    }
+}
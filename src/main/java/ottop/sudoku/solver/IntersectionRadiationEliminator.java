@@ -2,123 +2,86 @@ package ottop.sudoku.solver;
 
 import ottop.sudoku.board.AbstractGroup;
 import ottop.sudoku.board.Coord;
+import ottop.sudoku.board.Topology;
 import ottop.sudoku.explain.Explanation;
 import ottop.sudoku.explain.IntersectionRadiationEliminationReason;
 import ottop.sudoku.puzzle.ISudoku;
 
 import java.util.*;
 
+// Pointing and claiming: if a symbol can only go in the part of a group that
+// intersects with another group, it cannot be anywhere else in that other group.
+// The intersections come from the Topology, so they are worked out once per puzzle
+// shape, and the test per symbol is done on the position masks of both groups.
+
 public class IntersectionRadiationEliminator extends Eliminator {
+    private final Topology topology;
 
-    IntersectionRadiationEliminator(ISudoku myPuzzle, Map<Coord, Set<Integer>> candidatesPerCell, Map<Coord, List<Explanation>> removalReasons) {
-        super(myPuzzle, candidatesPerCell, removalReasons);
+    IntersectionRadiationEliminator(ISudoku myPuzzle, CandidateGrid candidates, EliminationLog log) {
+        super(myPuzzle, candidates, log);
+        this.topology = myPuzzle.getTopology();
     }
 
     public boolean eliminate() {
         boolean updated = false;
-        // TODO maybe not even need to explicitly create these intersections
-        // TODO intersections can be smaller anyway
-        Set<GroupIntersection> groupIntersections =
-                GroupIntersection.createGroupIntersections(myPuzzle.getGroups());
+        long since = startPass();
+
+        int[][] intersections = topology.getIntersections();
+        for (int i = 0; i < intersections.length; i++) {
+            int[] intersection = intersections[i];
+            int a = intersection[0];
+            int b = intersection[1];
+            if (!candidates.isChangedSince(a, since) && !candidates.isChangedSince(b, since)) continue;
 
-        for (GroupIntersection intersection : groupIntersections) {
-            Set<Integer> possibilitiesAtGroupIntersection =
-                    getCandidatesInArea(intersection.getIntersection());
+            int inA = intersection[2];
+            int inB = intersection[3];
             for (int symbolCode = 1; symbolCode < myPuzzle.getSymbolCodeRange(); symbolCode++) {
-                if (possibilitiesAtGroupIntersection.contains(symbolCode)) {
-                    @SuppressWarnings("unchecked")
-                    Set<Coord>[] groupCoordSet = new Set[2];
-                    @SuppressWarnings("unchecked")
-                    Set<Integer>[] pr = new Set[2];
-                    for (int i = 0; i < 2; i++) {
-                        groupCoordSet[i] = new HashSet<>(intersection.getIntersectionGroup(i).getCoords());
-                        groupCoordSet[i].removeAll(intersection.getIntersection());
-                        pr[i] = getCandidatesInArea(groupCoordSet[i]);
-                    }
-                    for (int i = 0; i < 2; i++) {
-                        if (!pr[i].contains(symbolCode)) {
-                            // If 'digit' is not possible anywhere else in this group, then it
-                            // has to be in the intersection. Which means it cannot be
-                            // anywhere else in the other group either.
-                            if (removePossibility(symbolCode,
-                                    groupCoordSet[1 - i],
-                                    new IntersectionRadiationEliminationReason(myPuzzle.symbolCodeToSymbol(symbolCode),
-                                            groupCoordSet[1 - i],
-                                            intersection.getIntersectionGroup(i),
-                                            intersection.getIntersectionGroup(1 - i),
-                                            intersection.getIntersection()))) updated = true;
-                        }
-                    }
+                int positionsA = candidates.getPositions(a, symbolCode);
+                if ((positionsA & inA) == 0) continue; // not in the intersection
+
+                // If the symbol is not possible anywhere else in one group, then it
+                // has to be in the intersection. Which means it cannot be anywhere
+                // else in the other group either.
+                int positionsB = candidates.getPositions(b, symbolCode);
+                if ((positionsA & ~inA) == 0 && (positionsB & ~inB) != 0) {
+                    if (radiate(symbolCode, a, b, positionsB & ~inB, i)) updated = true;
+                } else if ((positionsB & ~inB) == 0 && (positionsA & ~inA) != 0) {
+                    if (radiate(symbolCode, b, a, positionsA & ~inA, i)) updated = true;
                 }
             }
         }
         return updated;
     }
 
-    static class GroupIntersection {
-        private final Set<Coord> intersection;
-        private final AbstractGroup[] grps = new AbstractGroup[2];
-
-        public GroupIntersection(AbstractGroup a, AbstractGroup b) {
-            intersection = new TreeSet<>(a.getCoords());
-            intersection.retainAll(b.getCoords());
-            grps[0] = a;
-            grps[1] = b;
-        }
-
-        public static Set<GroupIntersection> createGroupIntersections(List<AbstractGroup> groups) {
-            Set<GroupIntersection> intersections = new LinkedHashSet<>();
-            for (AbstractGroup a : groups) {
-                for (AbstractGroup b : groups) {
-                    if (a != b) {
-                        GroupIntersection overlap = new GroupIntersection(a, b);
-                        // Intersections of 1 don't count. These would be seen as "lone values" anyway.
-                        // TODO: if all elements of the intersection are occupied skip it also
-                        if (overlap.intersection.size() > 1) {
-                            intersections.add(overlap);
-                        }
-                    }
-                }
-            }
-            return intersections;
-        }
-
-        public AbstractGroup getIntersectionGroup(int i) {
-            return grps[i];
-        }
-
-        @Override
-        public String toString() {
-            return intersection.toString();
-        }
-
-        @Override
-        public int hashCode() {
-            return intersection.hashCode();
+    // Remove the symbol at the given positions of group 'removedFrom'
+    private boolean radiate(int symbolCode, int mustBeIn, int removedFrom, int positions, int intersection) {
+        int[] cells = topology.getGroupCells(removedFrom);
+        boolean updated = false;
+        for (int p = positions; p != 0; p &= p - 1) {
+            if (removeCandidates(cells[Integer.numberOfTrailingZeros(p)], CandidateGrid.toMask(symbolCode),
+                    symbolCode, mustBeIn, removedFrom, intersection)) updated = true;
         }
+        return updated;
+    }
 
-        @Override
-        // Consider equal if the intersection is equal but don't care about the order of the two group references.
-        public boolean equals(Object obj) {
-            if (obj instanceof GroupIntersection) {
-                GroupIntersection other = (GroupIntersection) obj;
-                if ((grps[0] == other.grps[0] && grps[1] == other.grps[1]) || (grps[0] == other.grps[1] && grps[1] == other.grps[0])) {
-                    if (intersection == null && other.intersection == null) {
-                        return true;
-                    } else if (intersection == null || other.intersection == null) {
-                        return false;
-                    } else {
-                        return intersection.equals(other.intersection);
-                    }
-                } else {
-                    return false;
-                }
-            }
-            return super.equals(obj);
-        }
+    // Records are {symbol code, group it must be in, group it is removed from, intersection}
+    @Override
+    protected Explanation explain(int cell, int[] data) {
+        List<AbstractGroup> groups = myPuzzle.getGroups();
+        int[] intersection = topology.getIntersections()[data[3]];
+        return new IntersectionRadiationEliminationReason(myPuzzle.symbolCodeToSymbol(data[0]),
+                Collections.singleton(topology.getCoord(cell)),
+                groups.get(data[1]),
+                groups.get(data[2]),
+                toCoords(intersection[0], intersection[2]));
+    }
 
-        public Set<Coord> getIntersection() {
-            return intersection;
+    private Set<Coord> toCoords(int group, int positions) {
+        int[] cells = topology.getGroupCells(group);
+        Set<Coord> coords = new TreeSet<>();
+        for (int p = positions; p != 0; p &= p - 1) {
+            coords.add(topology.getCoord(cells[Integer.numberOfTrailingZeros(p)]));
         }
+        return coords;
     }
-}
\ No newline at end of file
+}
@@ -1,157 +1,192 @@
 package ottop.sudoku.solver;
 
-import ottop.sudoku.board.AbstractGroup;
 import ottop.sudoku.board.Coord;
-import ottop.sudoku.explain.Explanation;
+import ottop.sudoku.board.Topology;
 import ottop.sudoku.explain.NakedGroupEliminationReason;
+import ottop.sudoku.explain.Explanation;
 import ottop.sudoku.puzzle.ISudoku;
 
 import java.util.*;
 
-public class NakedGroupEliminator extends Eliminator {
+// Finds sets of k empty cells in a group that together have exactly k candidates
+// (naked pairs, trios, ...). Those candidates can be removed from the rest of the
+// group. Works on bitmasks of the empty cells of the group (at most 32), so it
+// scales to groups of 16 or 25 symbols.
+//
+// Small sets are found by combining cells, pruned as soon as the union of their
+// candidates gets too big. A naked set of more than half the empty cells is found
+// through its complement instead: the remaining symbols are then confined to the
+// remaining cells (a hidden set), which is small and found the same way from the
+// positions of each symbol.
 
-    NakedGroupEliminator(ISudoku myPuzzle, Map<Coord, Set<Integer>> candidatesPerCell, Map<Coord, List<Explanation>> removalReasons) {
-        super(myPuzzle, candidatesPerCell, removalReasons);
+public class NakedGroupEliminator extends Eliminator {
+    private final Topology topology;
+
+    // State for the group being examined, positions are indices into emptyCells
+    private final int[] emptyCells;
+    private final int[] emptyPositions; // index of the empty cell in the group's cells
+    private final int[] masks;
+    private final int[] symbolPositions; // by symbolCode - 1
+    private int emptyCount;
+    private final List<int[]> found = new ArrayList<>(); // {positions, symbols} per naked set
+
+    NakedGroupEliminator(ISudoku myPuzzle, CandidateGrid candidates, EliminationLog log) {
+        super(myPuzzle, candidates, log);
+        this.topology = myPuzzle.getTopology();
+        int maxGroupSize = 0;
+        for (int g = 0; g < topology.getGroupCount(); g++) {
+            maxGroupSize = Math.max(maxGroupSize, topology.getGroupCells(g).length);
+        }
+        this.emptyCells = new int[maxGroupSize];
+        this.emptyPositions = new int[maxGroupSize];
+        this.masks = new int[maxGroupSize];
+        this.symbolPositions = new int[myPuzzle.getSymbolCodeRange() - 1];
     }
 
     public boolean eliminate() {
         boolean updated = false;
-
-        for (AbstractGroup g : myPuzzle.getGroups()) {
-            // create map from sets of possibilities to the coordinates (in this group) that have those (same) possibilities
-            Map<Set<Integer>, Set<Coord>> nakedGroupMap = new LinkedHashMap<>();
-            for (Coord c : g.getCoords()) {
-                if (!myPuzzle.isOccupied(c)) {
-                    Set<Integer> pc = candidatesPerCell.get(c);
-                    Set<Coord> coordSet = nakedGroupMap.computeIfAbsent(pc, k -> new HashSet<>());
-                    coordSet.add(c);
-                }
+        long since = startPass();
+        // only groups with changed candidates can have new naked groups
+        for (int group : candidates.getChangedGroups(since)) {
+            if (collectEmptyCells(group)) {
+                findNakedSets();
+                if (eliminateInGroup(group)) updated = true;
             }
-
-            // find groups of cells that all have the same possibilities, and which is of the same size as the
-            // nr of possibilities: the possibilities can be removed from the rest of the group
-            if (eliminateInGroup(g, nakedGroupMap, false)) updated = true;
-
-            // Combine elements in this map. For example, if there are entries
-            // {26} --> [a], {27} --> [c], {26} --> [c] can be combined
-            // to a new entry {267} --> [abc]
-            combineNakedGroups(g, nakedGroupMap);
-
-            // Do further elimination (in two steps just to improve reporting)
-            if (eliminateInGroup(g, nakedGroupMap, true)) updated = true;
-
         }
 
         return updated;
     }
 
-    private boolean eliminateInGroup(AbstractGroup g,
-                                     Map<Set<Integer>, Set<Coord>> nakedGroupMap,
-                                     boolean isExtended) {
-        boolean hasEliminated = false;
-
-        for (Map.Entry<Set<Integer>, Set<Coord>> entry : nakedGroupMap.entrySet()) {
-            Set<Integer> nakedGroupSymbolCodes = entry.getKey();
-            Set<Coord> nakedGroupCoords = entry.getValue();
-            Set<String> nakedGroupSymbols = new HashSet<>();
-            for (Integer p : nakedGroupSymbolCodes) {
-                nakedGroupSymbols.add(myPuzzle.symbolCodeToSymbol(p));
-            }
-            if (nakedGroupSymbolCodes.size() > 1 && nakedGroupSymbolCodes.size() == nakedGroupCoords.size()) {
-                for (Coord c : g.getCoords()) {
-                    if (!myPuzzle.isOccupied(c)) {
-                        if (!nakedGroupCoords.contains(c)) {
-
-                            // naked pair symbols to be removed at c but find the
-                            // intersection with the remaining possibilities so only
-                            // really remove the ones not already removed earlier
-                            Set<Integer> currentPossibilities = candidatesPerCell.get(c);
-                            Set<Integer> actualRemovals = new HashSet<>(nakedGroupSymbolCodes);
-                            actualRemovals.retainAll(currentPossibilities);
-
-                            // translate actual removals to symbols
-                            Set<String> actualRemovalSymbols = new HashSet<>();
-                            for (Integer p : actualRemovals) {
-                                actualRemovalSymbols.add(myPuzzle.symbolCodeToSymbol(p));
-                            }
-
-                            if (removePossibilities(actualRemovals, c,
-                                    new NakedGroupEliminationReason(actualRemovalSymbols, c,
-                                            g,
-                                            nakedGroupSymbols, nakedGroupCoords, isExtended))) hasEliminated = true;
-                        }
-                    }
+    // Returns false if there is nothing to look for
+    private boolean collectEmptyCells(int group) {
+        emptyCount = 0;
+        Arrays.fill(symbolPositions, 0);
+        int[] cells = topology.getGroupCells(group);
+        for (int position = 0; position < cells.length; position++) {
+            int cell = cells[position];
+            if (myPuzzle.getSymbolCodeAtCell(cell) == 0) {
+                int mask = candidates.getMask(cell);
+                if (mask == 0) return false; // broken puzzle, leave it
+                for (int m = mask; m != 0; m &= m - 1) {
+                    symbolPositions[Integer.numberOfTrailingZeros(m)] |= 1 << emptyCount;
                 }
+                emptyCells[emptyCount] = cell;
+                emptyPositions[emptyCount] = position;
+                masks[emptyCount++] = mask;
             }
         }
+        return emptyCount > 2;
+    }
 
-        return hasEliminated;
+    // Collect all naked sets of 2 .. emptyCount-1 cells, smallest first
+    private void findNakedSets() {
+        found.clear();
+        int maxNaked = emptyCount / 2;
+        for (int size = 2; size <= maxNaked; size++) {
+            combineCells(0, size, 0, 0);
+        }
+
+        int allPositions = (1 << emptyCount) - 1;
+        int remainingSymbols = 0;
+        for (int s = 0; s < symbolPositions.length; s++) {
+            if (symbolPositions[s] != 0) remainingSymbols |= 1 << s;
+        }
+        for (int size = emptyCount - maxNaked - 1; size >= 1; size--) {
+            int first = found.size();
+            combineSymbols(0, size, 0, 0);
+            // turn the hidden sets into the naked sets they are the complement of
+            for (int i = first; i < found.size(); i++) {
+                int[] hidden = found.get(i);
+                found.set(i, new int[]{allPositions & ~hidden[0], remainingSymbols & ~hidden[1]});
+            }
+        }
     }
 
-    private void combineNakedGroups(AbstractGroup g, Map<Set<Integer>, Set<Coord>> nakedGroupMap) {
-        final int range = (1 << g.getGroupSize()); // range of possibilities for 9 digits: 2^9
-        final int mask = range - 1;
-
-        // Representing the possibilities in a bitmap (9 digits), find out which of
-        // all possible bitmaps (total of 512, 2^9), are a superset of the bitmap of
-        // a set of possibilities. Combine the mapped coordinates of those.
-        Map<Integer, Set<Coord>> newCombinationsMap = new HashMap<>();
-        for (Set<Integer> key : nakedGroupMap.keySet()) { // TODO: loop over entry set instead? Avoid the get later on.
-            int keyAsBitSet = toBitSet(key);
-            for (int counter = 0; counter < range; counter++) {
-                // bitwise operation to verify that all of "key" are contained in the digit set represented by "i"
-                if ((counter | (~keyAsBitSet & mask)) == mask) {
-                    Set<Coord> coords = newCombinationsMap.computeIfAbsent(counter, k -> new HashSet<>());
-                    Set<Coord> originalCoords = nakedGroupMap.get(key); // TODO: get twice can be removed both...
-                    if (originalCoords != null) {
-                        coords.addAll(nakedGroupMap.get(key));
-                    }
-                }
+    // Naked: cells whose candidates together are just as many symbols
+    private void combineCells(int start, int size, int positions, int union) {
+        int chosen = Integer.bitCount(positions);
+        if (chosen == size) {
+            if (Integer.bitCount(union) == size) found.add(new int[]{positions, union});
+            return;
+        }
+        for (int i = start; i <= emptyCount - (size - chosen); i++) {
+            int newUnion = union | masks[i];
+            if (Integer.bitCount(newUnion) <= size) {
+                combineCells(i + 1, size, positions | 1 << i, newUnion);
             }
         }
+    }
 
-        // Iterate through the combinations and if they are candidates for naked pair
-        // reduction, add them to the original map.
-        for (Map.Entry<Integer, Set<Coord>> entry : newCombinationsMap.entrySet()) {
-            int possibilitiesAsBitSet = entry.getKey();
-            Set<Coord> coordinates = entry.getValue();
-
-            // Only add the coordinates if the size of the set of coordinates leaves
-            // at least 1 unfilled cell in this group
-            if (coordinates.size() > 1 && coordinates.size() < (g.getGroupSize() - g.getGroupOccupiedSize())) {
-                if (getBitSetSize(possibilitiesAsBitSet) == coordinates.size()) {
-                    nakedGroupMap.put(fromBitSet(possibilitiesAsBitSet), coordinates);
-                }
+    // Hidden: symbols whose positions together are just as many cells
+    private void combineSymbols(int start, int size, int symbols, int union) {
+        int chosen = Integer.bitCount(symbols);
+        if (chosen == size) {
+            if (Integer.bitCount(union) == size) found.add(new int[]{union, symbols});
+            return;
+        }
+        for (int s = start; s <= symbolPositions.length - (size - chosen); s++) {
+            if (symbolPositions[s] == 0) continue; // placed already
+            int newUnion = union | symbolPositions[s];
+            if (Integer.bitCount(newUnion) <= size) {
+                combineSymbols(s + 1, size, symbols | 1 << s, newUnion);
             }
         }
     }
 
-    private static int getBitSetSize(int possibilitiesAsBitSet) {
-        int result = 0;
-        while (possibilitiesAsBitSet != 0) {
-            if ((possibilitiesAsBitSet & 1) != 0) result++;
-            possibilitiesAsBitSet = possibilitiesAsBitSet >> 1;
+    private boolean eliminateInGroup(int group) {
+        boolean hasEliminated = false;
+
+        for (int[] nakedSet : found) {
+            int positions = nakedSet[0];
+            int nakedGroupSymbolCodes = nakedSet[1];
+            if (Integer.bitCount(positions) != Integer.bitCount(nakedGroupSymbolCodes)) continue;
+
+            // simple when all cells have the very same candidates
+            boolean isExtended = false;
+            int groupPositions = 0;
+            for (int p = positions; p != 0; p &= p - 1) {
+                int i = Integer.numberOfTrailingZeros(p);
+                groupPositions |= 1 << emptyPositions[i];
+                if (masks[i] != nakedGroupSymbolCodes) isExtended = true;
+            }
+
+            for (int i = 0; i < emptyCount; i++) {
+                if ((positions & (1 << i)) == 0) {
+                    // naked group symbols to be removed at the cell but find the
+                    // intersection with the remaining possibilities so only
+                    // really remove the ones not already removed earlier
+                    int cell = emptyCells[i];
+                    int actualRemovals = nakedGroupSymbolCodes & candidates.getMask(cell);
+
+                    if (actualRemovals != 0 && removeCandidates(cell, actualRemovals,
+                            actualRemovals, group, nakedGroupSymbolCodes, groupPositions,
+                            isExtended ? 1 : 0)) hasEliminated = true;
+                }
+            }
         }
-        return result;
+
+        return hasEliminated;
     }
 
-    private static int toBitSet(Set<Integer> key) {
-        int result = 0;
-        for (int i : key) {
-            result += (1 << (i - 1));
+    // Records are {removed symbols, group, naked group symbols, naked group
+    // positions in the group, extended}
+    @Override
+    protected Explanation explain(int cell, int[] data) {
+        int[] cells = topology.getGroupCells(data[1]);
+        Set<Coord> nakedGroupCoords = new HashSet<>();
+        for (int p = data[3]; p != 0; p &= p - 1) {
+            nakedGroupCoords.add(topology.getCoord(cells[Integer.numberOfTrailingZeros(p)]));
         }
-        return result;
+        return new NakedGroupEliminationReason(toSymbols(data[0]), topology.getCoord(cell),
+                myPuzzle.getGroups().get(data[1]),
+                toSymbols(data[2]), nakedGroupCoords, data[4] != 0);
     }
 
-    private static Set<Integer> fromBitSet(int i) {
-        Set<Integer> result = new HashSet<>();
-        int val = 1;
-        while (i != 0) {
-            if ((i & 1) != 0) result.add(val);
-            i = i >> 1;
-            val++;
+    private Set<String> toSymbols(int symbolCodes) {
+        Set<String> result = new HashSet<>();
+        for (int symbolCode : CandidateGrid.toSymbolCodes(symbolCodes)) {
+            result.add(myPuzzle.symbolCodeToSymbol(symbolCode));
         }
         return result;
     }
-
-}
\ No newline at end of file
+}
@@ -0,0 +1,43 @@
+package ottop.sudoku.solver;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+// What solving a puzzle gave, see SudokuSolver.analyze: the solution by cell index
+// (null if there is none), the difficulty rating (-1 if logic could not solve it)
+// and the technique profile, the number of moves per difficulty level of the
+// hardest reason behind the move.
+
+public class SolveResult {
+    private final int[] solution;
+    private final int rating;
+    private final Map<Integer, Integer> profile;
+
+    public SolveResult(int[] solution, int rating, Map<Integer, Integer> profile) {
+        this.solution = solution == null ? null : solution.clone();
+        this.rating = rating;
+        this.profile = Collections.unmodifiableMap(new TreeMap<>(profile));
+    }
+
+    public int[] getSolution() {
+        return solution == null ? null : solution.clone();
+    }
+
+    public boolean isSolvable() {
+        return solution != null;
+    }
+
+    public int getRating() {
+        return rating;
+    }
+
+    public Map<Integer, Integer> getProfile() {
+        return profile;
+    }
+
+    @Override
+    public String toString() {
+        return "rating " + rating + ", moves per level " + profile + (solution == null ? ", no solution" : "");
+    }
+}
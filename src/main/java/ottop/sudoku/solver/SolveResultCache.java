@@ -0,0 +1,148 @@
+package ottop.sudoku.solver;
+
+import ottop.sudoku.puzzle.ISudoku;
+import ottop.sudoku.puzzle.VariantSudoku;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+// Remembers the results of SudokuSolver.analyze for the most recently used puzzles,
+// keyed by the puzzle type (with the layout id for variants) and its givens (not the
+// name), so the same puzzle is only solved and rated once. Safe to share between
+// the threads of a BatchSolver. Two threads asking for the same new puzzle at once
+// may both analyze it.
+//
+// The cache can be saved to a file and loaded again in a later run.
+
+public class SolveResultCache {
+    private static final int MAGIC = 0x53445243; // "SDRC"
+    private static final int VERSION = 1;
+
+    private final Map<String, SolveResult> results;
+    private long hits = 0;
+    private long misses = 0;
+
+    public SolveResultCache(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("Capacity must be at least 1");
+        this.results = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, SolveResult> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    // The cached result, analyzing the puzzle first if it is not there
+    public SolveResult get(ISudoku p) {
+        String key = toKey(p);
+        synchronized (this) {
+            SolveResult result = results.get(key);
+            if (result != null) {
+                hits++;
+                return result;
+            }
+            misses++;
+        }
+
+        SolveResult result = SudokuSolver.analyze(p);
+        synchronized (this) {
+            results.put(key, result);
+        }
+        return result;
+    }
+
+    public synchronized SolveResult getIfPresent(ISudoku p) {
+        return results.get(toKey(p));
+    }
+
+    public synchronized int size() {
+        return results.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    // Type of puzzle plus one character per cell for the givens
+    private static String toKey(ISudoku p) {
+        int cellCount = p.getTopology().getCellCount();
+        StringBuilder key = new StringBuilder(p.getClass().getName().length() + 18 + cellCount);
+        key.append(p.getClass().getName());
+        if (p instanceof VariantSudoku) key.append('/').append(((VariantSudoku) p).getLayout().getId());
+        key.append(':');
+        for (int cell = 0; cell < cellCount; cell++) {
+            key.append((char) ('0' + p.getSymbolCodeAtCell(cell)));
+        }
+        return key.toString();
+    }
+
+    // Write all entries, least recently used first, through a temporary file so a
+    // crash never leaves a half written cache behind
+    public void save(Path file) throws IOException {
+        List<Map.Entry<String, SolveResult>> entries;
+        synchronized (this) {
+            entries = new ArrayList<>(results.entrySet());
+        }
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(entries.size());
+            for (Map.Entry<String, SolveResult> entry : entries) {
+                SolveResult result = entry.getValue();
+                out.writeUTF(entry.getKey());
+                out.writeInt(result.getRating());
+                int[] solution = result.getSolution();
+                out.writeInt(solution == null ? -1 : solution.length);
+                if (solution != null) {
+                    for (int symbolCode : solution) out.writeByte(symbolCode);
+                }
+                out.writeInt(result.getProfile().size());
+                for (Map.Entry<Integer, Integer> level : result.getProfile().entrySet()) {
+                    out.writeInt(level.getKey());
+                    out.writeInt(level.getValue());
+                }
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // Add the entries of a saved cache, returns how many were read
+    public int load(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION)
+                throw new IllegalArgumentException(file + " is not a solve result cache");
+
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String key = in.readUTF();
+                int rating = in.readInt();
+                int solutionLength = in.readInt();
+                int[] solution = null;
+                if (solutionLength >= 0) {
+                    solution = new int[solutionLength];
+                    for (int cell = 0; cell < solutionLength; cell++) solution[cell] = in.readByte();
+                }
+                Map<Integer, Integer> profile = new TreeMap<>();
+                int levels = in.readInt();
+                for (int l = 0; l < levels; l++) {
+                    profile.put(in.readInt(), in.readInt());
+                }
+
+                SolveResult result = new SolveResult(solution, rating, profile);
+                synchronized (this) {
+                    results.put(key, result);
+                }
+            }
+            return count;
+        }
+    }
+}
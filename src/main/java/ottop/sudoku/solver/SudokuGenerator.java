@@ -0,0 +1,288 @@
+package ottop.sudoku.solver;
+
+import ottop.sudoku.puzzle.ISudoku;
+import ottop.sudoku.puzzle.StandardSudoku;
+import ottop.sudoku.reader.SudokuReader;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Makes new standard 9x9 puzzles on a pool of threads and hands them out as a
+// SudokuReader, so they can go anywhere a puzzle file can (BatchSolver, corpus
+// writer, ...). Every attempt fills a random grid, then takes out the clues in
+// random order, putting back those whose removal leaves more than one solution.
+// Only puzzles with an assessDifficulty rating in the requested range are kept.
+//
+// Minimal puzzles take out every clue they can. Otherwise clues whose removal
+// would take the rating past the range stay in, which gives more clues for the
+// easier levels. That rates the puzzle after every removal, so it is slower.
+// Attempts are seeded from the seed and their sequence number, so a run with
+// parallelism 1 is repeatable. After the maximum number of attempts the generator
+// gives up, and next throws an IllegalStateException once the puzzles found are
+// handed out.
+
+public class SudokuGenerator implements SudokuReader, Closeable {
+    private static final int CELLS = 81;
+    public static final long DEFAULT_MAX_ATTEMPTS = 100_000;
+
+    private final long count;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private int minRating = 0;
+    private int maxRating = Integer.MAX_VALUE;
+    private boolean minimal = true;
+    private long seed = System.nanoTime();
+    private long maxAttempts = DEFAULT_MAX_ATTEMPTS;
+
+    private ExecutorService pool;
+    private BlockingQueue<Generated> generated;
+    private final AtomicLong attempts = new AtomicLong();
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicInteger running = new AtomicInteger();
+    private volatile Throwable failure;
+    private volatile boolean closed = false;
+    private long handedOut = 0;
+    private int lastRating = -1;
+
+    public SudokuGenerator(long count) {
+        if (count < 0) throw new IllegalArgumentException("Count must not be negative");
+        this.count = count;
+    }
+
+    public SudokuGenerator setParallelism(int parallelism) {
+        if (parallelism < 1) throw new IllegalArgumentException("Parallelism must be at least 1");
+        checkNotStarted();
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    // Ratings as SudokuSolver.assessDifficulty gives them, both ends included.
+    // -1 is for puzzles that logic alone does not solve.
+    public SudokuGenerator setDifficulty(int minRating, int maxRating) {
+        if (minRating > maxRating) throw new IllegalArgumentException("Empty difficulty range");
+        checkNotStarted();
+        this.minRating = minRating;
+        this.maxRating = maxRating;
+        return this;
+    }
+
+    public SudokuGenerator setMinimal(boolean onOff) {
+        checkNotStarted();
+        this.minimal = onOff;
+        return this;
+    }
+
+    public SudokuGenerator setSeed(long seed) {
+        checkNotStarted();
+        this.seed = seed;
+        return this;
+    }
+
+    // Attempts over all threads before giving up
+    public SudokuGenerator setMaxAttempts(long maxAttempts) {
+        if (maxAttempts < 1) throw new IllegalArgumentException("Max attempts must be at least 1");
+        checkNotStarted();
+        this.maxAttempts = maxAttempts;
+        return this;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return handedOut < count;
+    }
+
+    @Override
+    public ISudoku next() {
+        Generated g = take();
+        lastRating = g.rating;
+        return new StandardSudoku("Generated " + g.sequenceNo, g.symbolCodes);
+    }
+
+    // Rating of the puzzle last handed out by next
+    public int getRating() {
+        return lastRating;
+    }
+
+    // Number of puzzles tried so far, kept or not
+    public long getAttempts() {
+        return Math.min(attempts.get(), maxAttempts);
+    }
+
+    // Write the remaining puzzles to a file as SudokuFileReader reads them, one per
+    // line with the rating in a second column. Returns the number written.
+    public long writeTo(Path file) throws IOException {
+        long written = 0;
+        try (BufferedWriter out = Files.newBufferedWriter(file)) {
+            char[] line = new char[CELLS];
+            while (hasNext()) {
+                Generated g = take();
+                for (int cell = 0; cell < CELLS; cell++) {
+                    line[cell] = g.symbolCodes[cell] == 0 ? '.' : (char) ('0' + g.symbolCodes[cell]);
+                }
+                out.write(line);
+                out.write("," + g.rating);
+                out.newLine();
+                written++;
+            }
+        }
+        return written;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        if (pool != null) pool.shutdownNow();
+    }
+
+    private void checkNotStarted() {
+        if (pool != null) throw new IllegalStateException("Generator already started");
+    }
+
+    private Generated take() {
+        if (!hasNext()) throw new IllegalStateException("No more puzzles to generate");
+        if (pool == null) start();
+
+        try {
+            Generated g;
+            while ((g = generated.poll(100, TimeUnit.MILLISECONDS)) == null) {
+                if (failure != null) throw new IllegalStateException("Generating a puzzle failed", failure);
+                if (running.get() == 0) {
+                    // workers gave up, only what is queued is left
+                    g = generated.poll();
+                    if (g == null) throw new IllegalStateException("No puzzle in the difficulty range after "
+                            + getAttempts() + " attempts");
+                    break;
+                }
+            }
+            handedOut++;
+            return g;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while generating", e);
+        }
+    }
+
+    private void start() {
+        generated = new ArrayBlockingQueue<>(parallelism * 16);
+        pool = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread t = new Thread(r, "sudoku-generator");
+            t.setDaemon(true);
+            return t;
+        });
+        running.set(parallelism);
+        for (int i = 0; i < parallelism; i++) {
+            pool.execute(() -> {
+                try {
+                    new Worker().run();
+                } catch (InterruptedException e) {
+                    // closed
+                } catch (Throwable t) {
+                    failure = t;
+                } finally {
+                    running.decrementAndGet();
+                }
+            });
+        }
+    }
+
+    private static class Generated {
+        final long sequenceNo;
+        final byte[] symbolCodes;
+        final int rating;
+
+        Generated(long sequenceNo, byte[] symbolCodes, int rating) {
+            this.sequenceNo = sequenceNo;
+            this.symbolCodes = symbolCodes;
+            this.rating = rating;
+        }
+    }
+
+    // Generation state of one thread
+    private class Worker {
+        private final BruteForceSolver solver = new BruteForceSolver(
+                new StandardSudoku("Empty", new byte[CELLS]));
+        private final byte[] board = new byte[CELLS];
+        private final int[] order = new int[CELLS];
+        private Random random;
+
+        void run() throws InterruptedException {
+            while (accepted.get() < count && !closed) {
+                long attemptNo = attempts.getAndIncrement();
+                if (attemptNo >= maxAttempts) break;
+                random = new Random(seed + attemptNo * 0x9E3779B97F4A7C15L);
+                int rating = attempt();
+                if (rating >= minRating && rating <= maxRating) {
+                    long sequenceNo = accepted.getAndIncrement();
+                    if (sequenceNo >= count) break;
+                    Generated g = new Generated(sequenceNo + 1, board.clone(), rating);
+                    while (!generated.offer(g, 100, TimeUnit.MILLISECONDS)) {
+                        if (closed) return;
+                    }
+                }
+            }
+        }
+
+        // Leaves the puzzle in board, returns its rating
+        private int attempt() {
+            fillGrid();
+
+            for (int cell = 0; cell < CELLS; cell++) order[cell] = cell;
+            shuffle(order);
+
+            for (int cell : order) {
+                byte symbolCode = board[cell];
+                board[cell] = 0;
+                if (solver.countSolutions(board, 2) != 1) {
+                    board[cell] = symbolCode;
+                    continue;
+                }
+
+                // too hard without it
+                if (!minimal && isTooHard(rate())) board[cell] = symbolCode;
+            }
+            return rate();
+        }
+
+        // -1 (not solved by logic) is harder than any rating
+        private boolean isTooHard(int rating) {
+            return rating < 0 ? minRating >= 0 : rating > maxRating;
+        }
+
+        // The boxes on the diagonal don't share groups, so any fill of them can be
+        // completed. The solver does the rest, its fixed symbol order is shuffled
+        // afterwards by relabeling.
+        private void fillGrid() {
+            Arrays.fill(board, (byte) 0);
+            int[] symbols = {1, 2, 3, 4, 5, 6, 7, 8, 9};
+            for (int box = 0; box < 3; box++) {
+                shuffle(symbols);
+                for (int i = 0; i < 9; i++) {
+                    board[(box * 3 + i / 3) * 9 + box * 3 + i % 3] = (byte) symbols[i];
+                }
+            }
+            int[] solution = solver.findSolution(board);
+            shuffle(symbols);
+            for (int cell = 0; cell < CELLS; cell++) board[cell] = (byte) symbols[solution[cell] - 1];
+        }
+
+        private int rate() {
+            return SudokuSolver.assessDifficulty(new StandardSudoku("Generated", board));
+        }
+
+        private void shuffle(int[] a) {
+            for (int i = a.length - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int tmp = a[i];
+                a[i] = a[j];
+                a[j] = tmp;
+            }
+        }
+    }
+}
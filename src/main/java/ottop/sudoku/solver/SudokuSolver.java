@@ -3,6 +3,7 @@ package ottop.sudoku.solver;
 import ottop.sudoku.board.Coord;
 import ottop.sudoku.explain.*;
 import ottop.sudoku.board.AbstractGroup;
+import ottop.sudoku.board.Topology;
 import ottop.sudoku.puzzle.ISudoku;
 
 import java.util.*;
@@ -13,25 +14,54 @@ import java.util.*;
 // https://www.extremesudoku.info/
 
 public class SudokuSolver implements Updateable {
+    public static final String NAKED_GROUPS = "nakedGroups";
+    public static final String INTERSECTION_RADIATION = "intersectionRadiation";
+    public static final String XWINGS = "xWings";
+    public static final String FRANKEN_FISH = "frankenFish";
+    public static final String FORCED_CHAINS = "forcedChains";
+
     private ISudoku myPuzzle;
 
-    // Map of cell to a set of possible values. The values are the
+    // Bitmask of possible values per cell index. The values are the
     // internal representation of the cell symbols.
-    private Map<Coord, Set<Integer>> candidatesPerCell = null;
-    private final Map<Coord, List<Explanation>> eliminationReasons = new HashMap<>();
+    private CandidateGrid candidates = null;
+
+    // Why candidates were removed, null when the solver runs without reasons
+    private EliminationLog eliminationLog = null;
+    private boolean doRecordEliminationReasons = true;
+
+    // Candidate trail and log sizes at which the incrementally applied moves
+    // started, most recent first. Undoing a move rolls back to its mark.
+    private final Deque<int[]> moveMarks = new ArrayDeque<>();
 
-    // TODO instead of this,
-    // keep a list of Eliminator objects that are used for elimination
-    private List<Eliminator> eliminators = new ArrayList<>();
+    // Elimination techniques by increasing cost, applied to the candidates
+    // after basic elimination. Instances are bound to the current grid.
+    private final List<Technique> techniques = new ArrayList<>();
+    private final List<Eliminator> eliminators = new ArrayList<>();
+    private BasicEliminationEliminator basicEliminator;
+    private boolean eliminatorsApplied;
 
-    private boolean doEliminationNakedPairs;
-    private boolean doEliminationIntersectionRadiation;
-    private boolean doEliminationXWings;
+    // Finish by brute force when the logic gets stuck
+    private boolean doBruteForceFallback;
 
     public SudokuSolver(ISudoku p) {
+        this();
+        setPuzzle(p);
+    }
+
+    // Not bound to a puzzle yet, for setPuzzle or rate
+    public SudokuSolver() {
+        setSimplest();
+    }
+
+    // Work on another puzzle from now on, keeping the techniques and settings. The
+    // previous puzzle no longer reports its moves.
+    public SudokuSolver setPuzzle(ISudoku p) {
+        if (myPuzzle != null && myPuzzle != p) myPuzzle.setSolver(null);
         myPuzzle = p;
         p.setSolver(this);
-        setSimplest();
+        candidates = null; // flags that this cache needs reinitialization
+        return this;
     }
 
     public SudokuSolver setEliminateNakedPairs() {
@@ -39,9 +69,7 @@ public class SudokuSolver implements Updateable {
     }
 
     public SudokuSolver setEliminateNakedPairs(boolean onOff) {
-        doEliminationNakedPairs = onOff;
-        candidatesPerCell = null; // flags that this cache needs reinitialization
-        return this;
+        return setTechnique(NAKED_GROUPS, 10, NakedGroupEliminator::new, onOff);
     }
 
     public SudokuSolver setEliminateIntersectionRadiation() {
@@ -49,9 +77,7 @@ public class SudokuSolver implements Updateable {
     }
 
     public SudokuSolver setEliminateIntersectionRadiation(boolean onOff) {
-        doEliminationIntersectionRadiation = onOff;
-        candidatesPerCell = null; // flags that this cache needs reinitialization
-        return this;
+        return setTechnique(INTERSECTION_RADIATION, 20, IntersectionRadiationEliminator::new, onOff);
     }
 
     public SudokuSolver setEliminateXWings() {
@@ -59,8 +85,78 @@ public class SudokuSolver implements Updateable {
     }
 
     public SudokuSolver setEliminateXWings(boolean onOff) {
-        doEliminationXWings = onOff;
-        candidatesPerCell = null; // flags that this cache needs reinitialization
+        return setTechnique(XWINGS, 30, XWingEliminator::new, onOff);
+    }
+
+    // X-Wings and their bigger versions with boxes (or NRC windows) as base or
+    // cover groups. Not part of setSmartest, callers opt in.
+    public SudokuSolver setEliminateFrankenFish() {
+        return setEliminateFrankenFish(true);
+    }
+
+    public SudokuSolver setEliminateFrankenFish(boolean onOff) {
+        return setTechnique(FRANKEN_FISH, 35,
+                (p, c, log) -> new XWingEliminator(p, c, log, true), onOff);
+    }
+
+    public SudokuSolver setEliminateForcedChains() {
+        return setEliminateForcedChains(true);
+    }
+
+    public SudokuSolver setEliminateForcedChains(boolean onOff) {
+        return setTechnique(FORCED_CHAINS, 40, ForcedChainEliminator::new, onOff);
+    }
+
+    private SudokuSolver setTechnique(String name, int cost, EliminatorFactory factory, boolean onOff) {
+        return onOff ? addEliminator(name, cost, factory) : removeEliminator(name);
+    }
+
+    // Plug in an elimination technique. Cheaper techniques are tried first, and
+    // after any successful elimination the solver looks for singles again before
+    // trying more expensive ones. Replaces an earlier technique of the same name.
+    public SudokuSolver addEliminator(String name, int cost, EliminatorFactory factory) {
+        techniques.removeIf(t -> t.name.equals(name));
+        int pos = 0;
+        while (pos < techniques.size() && techniques.get(pos).cost <= cost) pos++;
+        techniques.add(pos, new Technique(name, cost, factory));
+        candidates = null; // flags that this cache needs reinitialization
+        return this;
+    }
+
+    public SudokuSolver removeEliminator(String name) {
+        if (techniques.removeIf(t -> t.name.equals(name))) {
+            candidates = null; // flags that this cache needs reinitialization
+        }
+        return this;
+    }
+
+    // Names of the active techniques, cheapest first
+    public List<String> getEliminatorNames() {
+        List<String> names = new ArrayList<>();
+        for (Technique t : techniques) names.add(t.name);
+        return names;
+    }
+
+    public SudokuSolver setBruteForceFallback() {
+        return setBruteForceFallback(true);
+    }
+
+    public SudokuSolver setBruteForceFallback(boolean onOff) {
+        doBruteForceFallback = onOff;
+        return this;
+    }
+
+    // Keep track of why candidates were eliminated (the default), for
+    // getEliminationReasons and assessDifficulty. Without, solving is faster.
+    public SudokuSolver setRecordEliminationReasons() {
+        return setRecordEliminationReasons(true);
+    }
+
+    public SudokuSolver setRecordEliminationReasons(boolean onOff) {
+        if (doRecordEliminationReasons != onOff) {
+            doRecordEliminationReasons = onOff;
+            candidates = null; // flags that this cache needs reinitialization
+        }
         return this;
     }
 
@@ -68,9 +164,16 @@ public class SudokuSolver implements Updateable {
         setEliminateNakedPairs(false);
         setEliminateIntersectionRadiation(false);
         setEliminateXWings(false);
+        setEliminateFrankenFish(false);
+        setEliminateForcedChains(false);
         return this;
     }
 
+    // Everything but Franken fish and forced chains, callers opt in to those with
+    // setEliminateFrankenFish and setEliminateForcedChains. Forced chains stop on a
+    // time budget, so what they find depends on the machine and its load, and
+    // assessDifficulty (and all ratings built on it) must give the same puzzle the
+    // same rating every time.
     public SudokuSolver setSmartest() {
         setEliminateNakedPairs(true);
         setEliminateIntersectionRadiation(true);
@@ -80,74 +183,59 @@ public class SudokuSolver implements Updateable {
 
     private void recalculateCandidates()
     {
-        candidatesPerCell = new HashMap<>();
-
-        // Clear out the reasons for the non-occupied cells
-        // TODO: this may not work out for undo/redo sequences
-        for (Coord c: myPuzzle.getAllCells()) {
-            if (!myPuzzle.isOccupied(c)) {
-                eliminationReasons.put(c, null);
-            }
-        }
+        candidates = new CandidateGrid(myPuzzle.getTopology(), myPuzzle.getSymbolCodeRange());
+        eliminationLog = doRecordEliminationReasons ? new EliminationLog(candidates.getCellCount()) : null;
+        moveMarks.clear();
 
         // TODO maybe fill all cell candidates with all symbols
 
-        Eliminator simpleEliminator =
-                new BasicEliminationEliminator(myPuzzle, candidatesPerCell, eliminationReasons);
-        simpleEliminator.eliminate();
+        basicEliminator = new BasicEliminationEliminator(myPuzzle, candidates, eliminationLog);
+        basicEliminator.eliminate();
 
-        updateCandidates();
+        // The other techniques only run when nextMove needs them, cheapest first
+        eliminatorsApplied = false;
+        eliminators.clear();
+        for (Technique t : techniques) {
+            eliminators.add(t.factory.create(myPuzzle, candidates, eliminationLog));
+        }
     }
 
-    private boolean updateCandidates() {
-        // Basic radiation will be done always
-
-        boolean hasEliminated = false;
+    // Apply every enabled technique once, cheapest first, the first time the
+    // candidates are shown or the puzzle is rated. Solving alone does not need
+    // this, nextMove escalates when it gets stuck.
+    private void applyEliminators() {
+        if (candidates == null) recalculateCandidates();
+        if (eliminatorsApplied) return;
 
-        if (doEliminationNakedPairs) {
-            Eliminator e = new NakedGroupEliminator(myPuzzle, candidatesPerCell, eliminationReasons);
-            if (e.eliminate()) hasEliminated = true;
-//            if (eliminateNakedPairs()) hasEliminated=true;
-        }
-        if (doEliminationIntersectionRadiation) {
-            Eliminator e = new IntersectionRadiationEliminator(myPuzzle, candidatesPerCell, eliminationReasons);
-            if (e.eliminate()) hasEliminated = true;
-//            if (eliminateByRadiationFromIntersections()) hasEliminated=true;
-        }
-        if (doEliminationXWings) {
-            Eliminator e = new XWingEliminator(myPuzzle, candidatesPerCell, eliminationReasons);
-            if (e.eliminate()) hasEliminated = true;
-//           if (eliminateByXWings()) hasEliminated=true;
+        eliminatorsApplied = true;
+        for (Eliminator e : eliminators) {
+            e.eliminate();
         }
-
-        return hasEliminated;
     }
 
+    // Basic radiation is done always (incrementally with every move). Of the
+    // other techniques only the cheapest one that removes anything is applied.
+    private boolean updateCandidates() {
+        for (Eliminator e : eliminators) {
+            if (e.eliminate()) return true;
+        }
+        return false;
+    }
 
+    private static class Technique {
+        final String name;
+        final int cost;
+        final EliminatorFactory factory;
 
-
-
-    private boolean checkForcedChains()
-    {
-        // Given an original puzzle O
-        // Find a coord C with possibilities Di (> 1, start with C's with only 2)
-        // Do move for all possibilities Mi giving new puzzles Pi
-        // Apply only forced moves to all of Pi giving Fi until no more moves
-        // When all done:
-        //    if there is an i for which Fi is solved then we accidentally guessed a solution
-        //    if there is an i for which Fi is invalid then Mi is not a valid move
-        //    otherwise for all i that do not result in an invalid puzzle Fi
-        //        if there is a coordinate K that is empty in O and that is not empty in all of Fi
-        //           if that has the SAME value in all of Fi then we have a move: at C place Di (return)
-        // Otherwise no move :(
-        //
-
-
-        return true;
+        Technique(String name, int cost, EliminatorFactory factory) {
+            this.name = name;
+            this.cost = cost;
+            this.factory = factory;
+        }
     }
 
     public Map<Coord, String> getAllNakedSingles() {
-        if (candidatesPerCell == null) recalculateCandidates();
+        applyEliminators();
 
         return getNakedSingles(true);
     }
@@ -162,12 +250,9 @@ public class SudokuSolver implements Updateable {
 
     private String getNakedSingleAt(Coord coord) {
         if (!myPuzzle.isOccupied(coord)) {
-            Set<Integer> cellPossibilities = candidatesPerCell.get(coord);
-            if (cellPossibilities != null) {
-                if (cellPossibilities.size() == 1) {
-                    Integer symbolCode = cellPossibilities.iterator().next();
-                    return myPuzzle.symbolCodeToSymbol(symbolCode);
-                }
+            int cellPossibilities = candidates.getMask(myPuzzle.getCellIndex(coord));
+            if (Integer.bitCount(cellPossibilities) == 1) {
+                return myPuzzle.symbolCodeToSymbol(CandidateGrid.firstSymbolCode(cellPossibilities));
             }
         }
         return null;
@@ -175,10 +260,11 @@ public class SudokuSolver implements Updateable {
 
     private Map<Coord, String> getNakedSingles(boolean all) {
         Map<Coord, String> result = new TreeMap<>();
-        for (Coord coord: myPuzzle.getAllCells()) {
-            String symbol = getNakedSingleAt(coord);
-            if (symbol != null) {
-                result.put(coord, symbol);
+        Coord[] cells = myPuzzle.getAllCells();
+        for (int cell = 0; cell < cells.length; cell++) {
+            int cellPossibilities = candidates.getMask(cell);
+            if (Integer.bitCount(cellPossibilities) == 1 && myPuzzle.getSymbolCodeAtCell(cell) == 0) {
+                result.put(cells[cell], myPuzzle.symbolCodeToSymbol(CandidateGrid.firstSymbolCode(cellPossibilities)));
                 if (!all) return result;
             }
         }
@@ -186,57 +272,78 @@ public class SudokuSolver implements Updateable {
     }
 
     public Map<Coord, Map.Entry<String, List<AbstractGroup>>> getAllUniqueValues() {
-        if (candidatesPerCell == null) recalculateCandidates();
+        applyEliminators();
 
-        return getUniqueValues(true, myPuzzle.getGroups());
+        return getUniqueValues(true);
     }
 
     private Map.Entry<Coord, Map.Entry<String, List<AbstractGroup>>> getFirstUniqueValue() {
         Map<Coord, Map.Entry<String, List<AbstractGroup>>> results =
-                getUniqueValues(false, myPuzzle.getGroups());
+                getUniqueValues(false);
         if (results.size() >= 1) {
             return results.entrySet().iterator().next();
         }
         return null;
     }
 
-    // TODO: this is not super efficient - will consider too many coordinates
     private Map.Entry<String, List<AbstractGroup>> getUniqueValueAt(Coord c) {
-        Map<Coord, Map.Entry<String, List<AbstractGroup>>> uniqueValues =
-                getUniqueValues(false, myPuzzle.getBuddyGroups(c));
-        if (uniqueValues != null && uniqueValues.size()>0) {
-            Map.Entry<String, List<AbstractGroup>> uniqueValue = uniqueValues.get(c);
-            return uniqueValue;
+        int cell = myPuzzle.getCellIndex(c);
+        if (myPuzzle.getSymbolCodeAtCell(cell) != 0) return null;
+
+        Topology topology = myPuzzle.getTopology();
+        int[] groups = topology.getCellGroups(cell);
+        int[] positions = topology.getCellGroupPositions(cell);
+        Map.Entry<String, List<AbstractGroup>> result = null;
+        for (int i = 0; i < groups.length; i++) {
+            // symbols of this cell that have no other place in the group
+            int hidden = 0;
+            for (int m = candidates.getMask(cell); m != 0; m &= m - 1) {
+                int symbolCode = Integer.numberOfTrailingZeros(m) + 1;
+                if (candidates.getPositions(groups[i], symbolCode) == 1 << positions[i]) {
+                    hidden |= CandidateGrid.toMask(symbolCode);
+                }
+            }
+            if (Integer.bitCount(hidden) == 1) {
+                String symbol = myPuzzle.symbolCodeToSymbol(CandidateGrid.firstSymbolCode(hidden));
+                if (result == null) result = new AbstractMap.SimpleEntry<>(symbol, new ArrayList<>());
+                if (result.getKey().equals(symbol)) result.getValue().add(myPuzzle.getGroups().get(groups[i]));
+            }
         }
-        return null;
+        return result;
     }
 
-    private Map<Coord, Map.Entry<String, List<AbstractGroup>>> getUniqueValues(boolean all, List<AbstractGroup> groups) {
+    // A cell has a unique value in a group when it is the only place left for
+    // exactly one symbol, read from the candidate positions per group and symbol
+    private Map<Coord, Map.Entry<String, List<AbstractGroup>>> getUniqueValues(boolean all) {
         Map<Coord, Map.Entry<String, List<AbstractGroup>>> result = new TreeMap<>();
-
-        for (AbstractGroup g: groups) {
-            for (Coord c: g.getCoords()) {
-                if (!myPuzzle.isOccupied(c)) {
-                    Set<Integer> remainingPossibilities = new HashSet<>(candidatesPerCell.get(c));
-                    for (Coord otherCell : g.getCoords()) {
-                        if (!myPuzzle.isOccupied(otherCell)) {
-                            if (!otherCell.equals(c)) {
-                                remainingPossibilities.removeAll(candidatesPerCell.get(otherCell));
-                            }
-                        }
-                    }
-                    if (remainingPossibilities.size() == 1) {
-                        Integer symbolCode = remainingPossibilities.iterator().next();
-
-                        if (!result.containsKey(c)) {
-                            result.put(c, new AbstractMap.SimpleEntry<>(myPuzzle.symbolCodeToSymbol(symbolCode),
-                                    new ArrayList<>()));
-                        }
-                        result.get(c).getValue().add(g);
-//                        recordEliminationReason(c, new UniqueValueSolution(myPuzzle.symbolCodeToSymbol(symbolCode), c,
-//                                result.get(c).getValue()));
-                        if (!all) return result;
+        Topology topology = myPuzzle.getTopology();
+        int symbolCodeRange = myPuzzle.getSymbolCodeRange();
+
+        for (int group = 0; group < topology.getGroupCount(); group++) {
+            // symbols with a single position, by position
+            int[] hiddenAt = null;
+            for (int symbolCode = 1; symbolCode < symbolCodeRange; symbolCode++) {
+                int positions = candidates.getPositions(group, symbolCode);
+                if (positions != 0 && (positions & (positions - 1)) == 0) {
+                    if (hiddenAt == null) hiddenAt = new int[topology.getGroupCells(group).length];
+                    hiddenAt[Integer.numberOfTrailingZeros(positions)] |= CandidateGrid.toMask(symbolCode);
+                }
+            }
+            if (hiddenAt == null) continue;
+
+            int[] groupCells = topology.getGroupCells(group);
+            for (int i = 0; i < groupCells.length; i++) {
+                int cell = groupCells[i];
+                if (Integer.bitCount(hiddenAt[i]) == 1 && myPuzzle.getSymbolCodeAtCell(cell) == 0) {
+                    Coord c = topology.getCoord(cell);
+                    int symbolCode = CandidateGrid.firstSymbolCode(hiddenAt[i]);
+
+                    if (!result.containsKey(c)) {
+                        result.put(c, new AbstractMap.SimpleEntry<>(myPuzzle.symbolCodeToSymbol(symbolCode),
+                                new ArrayList<>()));
                     }
+                    result.get(c).getValue().add(myPuzzle.getGroups().get(group));
+                    if (!all) return result;
                 }
             }
         }
@@ -246,7 +353,7 @@ public class SudokuSolver implements Updateable {
 
 
     public Map.Entry<Coord, String> nextMove(SolveStats stats) {
-        if (candidatesPerCell == null) recalculateCandidates();
+        if (candidates == null) recalculateCandidates();
 
         Map.Entry<Coord, String> nextMove = null;
 //        possibilitiesContainer = new PossibilitiesContainer(myPuzzle);
@@ -280,7 +387,7 @@ public class SudokuSolver implements Updateable {
 
     // TODO: this is ONLY used in tests right now - consider moving there
     public boolean solve() {
-        if (candidatesPerCell == null) recalculateCandidates();
+        if (candidates == null) recalculateCandidates();
 
         SolveStats stats = new SolveStats();
         while (!myPuzzle.isComplete() && !myPuzzle.isInconsistent()) {
@@ -291,6 +398,8 @@ public class SudokuSolver implements Updateable {
 
             if (nextMove != null) {
                 myPuzzle.doMove(nextMove.getKey(), nextMove.getValue());
+            } else if (doBruteForceFallback) {
+                return new BruteForceSolver(myPuzzle).solve(myPuzzle) && myPuzzle.isSolved();
             } else {
                 return false;
             }
@@ -298,12 +407,15 @@ public class SudokuSolver implements Updateable {
         return myPuzzle.isSolved();
     }
 
-    // Add moves on the fly if there are any
+    // Add moves on the fly if there are any. Only has the move when
+    // elimination reasons are not recorded.
     public List<Explanation> getEliminationReasons(Coord c) {
-        if (candidatesPerCell == null) recalculateCandidates();
+        if (candidates == null) recalculateCandidates();
 
         List<Explanation> reasonsPlusCandidateMove = new ArrayList<>();
-        reasonsPlusCandidateMove.addAll(eliminationReasons.get(c));
+        if (eliminationLog != null) {
+            reasonsPlusCandidateMove.addAll(eliminationLog.getExplanations(myPuzzle.getCellIndex(c)));
+        }
         String symbol = getNakedSingleAt(c);
         if (symbol != null) {
             reasonsPlusCandidateMove.add(new NakedSingleSolution(symbol, c));
@@ -318,29 +430,59 @@ public class SudokuSolver implements Updateable {
     }
 
     public static int assessDifficulty(ISudoku p) {
+        return new SudokuSolver(p.clone()).setSmartest().rateMoves(null);
+    }
+
+    // Rating of a copy of the puzzle as assessDifficulty works it out, but with
+    // the techniques of this solver. For rating many puzzles with one solver.
+    public int rate(ISudoku p) {
+        setPuzzle(p.clone());
+        return rateMoves(null);
+    }
+
+    // Rating and profile as assessDifficulty works them out, plus the solution.
+    // That comes from brute force when logic is not enough.
+    public static SolveResult analyze(ISudoku p) {
         ISudoku shadowPuzzle = p.clone();
-        SudokuSolver sv = new SudokuSolver(shadowPuzzle);
+        Map<Integer, Integer> profile = new TreeMap<>();
+        int rating = new SudokuSolver(shadowPuzzle).setSmartest().rateMoves(profile);
+
+        int[] solution;
+        if (rating >= 0) {
+            solution = new int[shadowPuzzle.getTopology().getCellCount()];
+            for (int cell = 0; cell < solution.length; cell++) {
+                solution[cell] = shadowPuzzle.getSymbolCodeAtCell(cell);
+            }
+        } else {
+            solution = new BruteForceSolver(p).findSolution(p);
+        }
+        return new SolveResult(solution, rating, profile);
+    }
+
+    // Solves the puzzle itself by logic. If a profile is given, counts the
+    // moves in it by the difficulty of their hardest reason.
+    private int rateMoves(Map<Integer, Integer> profile) {
+        applyEliminators(); // rated with the techniques applied up front, as always
         SolveStats s = new SolveStats();
-        sv.setSmartest();
         int maxReasonLevel = -1;
         int maxNumberOfIterations = 1;
-        while (!shadowPuzzle.isComplete() && !shadowPuzzle.isInconsistent()) {
-            Map.Entry<Coord, String> nextMove = sv.nextMove(s);
+        while (!myPuzzle.isComplete() && !myPuzzle.isInconsistent()) {
+            Map.Entry<Coord, String> nextMove = nextMove(s);
 
             if (nextMove != null) {
                 // TODO: reasons could be recursive if dependent on other non-trivial cells
-                List<Explanation> reasons = sv.getEliminationReasons(nextMove.getKey());
+                List<Explanation> reasons = getEliminationReasons(nextMove.getKey());
+                int moveLevel = -1;
                 for (Explanation r : reasons) {
-                    maxReasonLevel = Math.max(maxReasonLevel, r.getDifficulty());
+                    moveLevel = Math.max(moveLevel, r.getDifficulty());
                 }
+                maxReasonLevel = Math.max(maxReasonLevel, moveLevel);
+                if (profile != null) profile.merge(moveLevel, 1, Integer::sum);
 
                 // Bonus when multiple rounds needed
-                //maxNumberOfIterations = Math.max(maxNumberOfIterations, sv.numberOfEliminationIterations);
-
-                shadowPuzzle.doMove(nextMove.getKey(), nextMove.getValue());
+                //maxNumberOfIterations = Math.max(maxNumberOfIterations, numberOfEliminationIterations);
 
-                System.out.println("** original " + p.isSolved() + p.isComplete());
-                System.out.println("** shadow " + shadowPuzzle.isSolved() + shadowPuzzle.isComplete());
+                myPuzzle.doMove(nextMove.getKey(), nextMove.getValue());
            } else {
                 break;
             }
@@ -349,7 +491,7 @@ public class SudokuSolver implements Updateable {
         // Bonus when multiple rounds were needed in some step
         maxReasonLevel = maxReasonLevel + maxNumberOfIterations - 1;
 
-        if (!shadowPuzzle.isSolved()) return -1;
+        if (!myPuzzle.isSolved()) return -1;
 
         return maxReasonLevel;
     }
@@ -360,13 +502,38 @@ public class SudokuSolver implements Updateable {
 //    }
 
     public Set<Integer> getCandidatesAtCell(Coord c) {
-    if (candidatesPerCell == null) recalculateCandidates();
+        applyEliminators();
 
-    return candidatesPerCell.get(c);
+        return candidates.getCandidates(myPuzzle.getCellIndex(c));
     }
 
     @Override
     public void update() {
         recalculateCandidates();
     }
+
+    // Only the peers of the cell lose the symbol, everything derived before
+    // the move stays valid.
+    @Override
+    public void moveDone(int cell, int symbolCode) {
+        if (candidates == null) return; // not calculated yet, will be done from scratch
+
+        moveMarks.push(new int[]{candidates.getTrailSize(), eliminationLog == null ? 0 : eliminationLog.size()});
+        basicEliminator.eliminateMove(cell, symbolCode);
+    }
+
+    @Override
+    public void moveUndone(int cell, int symbolCode) {
+        if (candidates == null) return;
+
+        if (moveMarks.isEmpty()) {
+            // move was not applied incrementally
+            recalculateCandidates();
+        } else {
+            // the reasons logged since the move are for exactly the eliminations undone
+            int[] mark = moveMarks.pop();
+            candidates.undoTo(mark[0]);
+            if (eliminationLog != null) eliminationLog.truncate(mark[1]);
+        }
+    }
 }
@@ -1,5 +1,12 @@
 package ottop.sudoku.solver;
 
 public interface Updateable {
+    // Board changed in an arbitrary way, recalculate everything
     void update();
+
+    // Symbol placed on a previously empty cell (by cell index)
+    void moveDone(int cell, int symbolCode);
+
+    // Symbol taken away again from a cell, reverting the last moveDone
+    void moveUndone(int cell, int symbolCode);
 }
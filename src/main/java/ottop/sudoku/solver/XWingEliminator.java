@@ -1,134 +1,172 @@
 package ottop.sudoku.solver;
 
 import ottop.sudoku.board.AbstractGroup;
-import ottop.sudoku.board.ColumnGroup;
 import ottop.sudoku.board.Coord;
-import ottop.sudoku.board.RowGroup;
+import ottop.sudoku.board.Topology;
 import ottop.sudoku.explain.Explanation;
 import ottop.sudoku.explain.XWingEliminationReason;
 import ottop.sudoku.puzzle.ISudoku;
 
 import java.util.*;
 
+// Fish of size 2 to 4 (X-Wing, Swordfish, Jellyfish) for every symbol. Take N base
+// groups from one family (see Topology, e.g. N columns) and N cover groups from
+// another one (e.g. N rows). If all candidates of the symbol in the base groups are
+// in the cover groups, the N placements the base groups need fill all of the cover
+// groups, so the symbol can be removed from the rest of the cover groups.
+//
+// Groups in a family never share cells, so this holds for any two families: rows
+// and columns give the classic fish, boxes or NRC groups give the Franken versions.
+// Those are harder to spot, so they are a technique of their own: an eliminator
+// either looks for the classic fish only or for the Franken ones only.
+// Everything runs on bitmasks: per base group the cover groups (as bits within the
+// cover family) that its candidates are in, which are then combined like the cells
+// of a naked group.
+
 public class XWingEliminator extends Eliminator {
+    private static final int MAX_SIZE = 4;
+
+    private final Topology topology;
+    private final List<AbstractGroup> groups;
+    private final boolean franken; // fish with a family other than rows or columns
+
+    // Candidate base groups for the current symbol and family pair
+    private final int[] baseMembers; // index within the base family
+    private final int[] coverMasks; // cover family members its candidates are in
+    private int baseCount;
+
+    XWingEliminator(ISudoku myPuzzle, CandidateGrid candidates, EliminationLog log) {
+        this(myPuzzle, candidates, log, false);
+    }
 
-    XWingEliminator(ISudoku myPuzzle, Map<Coord, Set<Integer>> candidatesPerCell, Map<Coord, List<Explanation>> removalReasons) {
-        super(myPuzzle, candidatesPerCell, removalReasons);
+    XWingEliminator(ISudoku myPuzzle, CandidateGrid candidates, EliminationLog log, boolean franken) {
+        super(myPuzzle, candidates, log);
+        this.topology = myPuzzle.getTopology();
+        this.groups = myPuzzle.getGroups();
+        this.franken = franken;
+        int maxFamilySize = 0;
+        for (int f = 0; f < topology.getFamilyCount(); f++) {
+            maxFamilySize = Math.max(maxFamilySize, topology.getFamilyGroups(f).length);
+        }
+        this.baseMembers = new int[maxFamilySize];
+        this.coverMasks = new int[maxFamilySize];
     }
 
     public boolean eliminate() {
         boolean updated = false;
+        long since = startPass();
         for (int symbolCode = 1; symbolCode < myPuzzle.getSymbolCodeRange(); symbolCode++) {
-            // For each symbolCode, figure out in which rows of each column it occurs. Then
-            // get the set of columns that have the same row set. Same for rows x cols.
-            // For those entries that have the same size of {columns} x {rows}, we now
-            // know that 'symbolCode' has to be in (one or more of) the intersections of those,
-            // so it can be eliminated from the possibilities in each of those groups
-            // outside of the intersections.
-
-            Map<Set<AbstractGroup>, Set<AbstractGroup>> xWingMap = new HashMap<>();
-            for (AbstractGroup g : myPuzzle.getGroups()) {
-                Set<AbstractGroup> intersectingGroups = null;
-                if (g instanceof ColumnGroup) {
-                    // list of rows intersecting with column g
-                    intersectingGroups = toRowGroups(getRowSet(g, symbolCode));
-                } else if (g instanceof RowGroup) {
-                    // list of columns intersecting with row g
-                    intersectingGroups = toColumnGroups(getColSet(g, symbolCode));
-                }
-                if (intersectingGroups != null && !intersectingGroups.isEmpty()) {
-                    Set<AbstractGroup> grps = xWingMap.computeIfAbsent(intersectingGroups, k -> new TreeSet<>());
-                    grps.add(g);
-                }
-            }
-
-            // For all keys k
-            // if there is another key that k is a full subset of
-            // then add all values of k to that one too
-            for (Map.Entry<Set<AbstractGroup>, Set<AbstractGroup>> k: xWingMap.entrySet()) {
-                for (Map.Entry<Set<AbstractGroup>, Set<AbstractGroup>> l: xWingMap.entrySet()) {
-                    if (k != l) {
-                        if (l.getKey().containsAll(k.getKey())) {
-                            l.getValue().addAll(k.getValue());
-                        }
-                    }
-                }
+            // The fish for a symbol only depend on its own candidates
+            boolean changed = false;
+            for (int g = 0; g < groups.size() && !changed; g++) {
+                changed = candidates.isChangedSince(g, symbolCode, since);
             }
+            if (!changed) continue;
 
-            // Now, with this map, if the set of rows is of the same size as the set of
-            // columns that have identical row sets, eliminate 'symbolCode' from other cells
-            // in the rows. Same for col vs row.
-            for (Map.Entry<Set<AbstractGroup>, Set<AbstractGroup>> entry : xWingMap.entrySet()) {
-                if (entry.getKey().size() > 1 &&
-                        entry.getKey().size() == entry.getValue().size()) { // becomes * 2 now ??
-                    for (AbstractGroup g : entry.getKey()) {
-                        // Eliminate 'symbolCode' from this row 'g' except for the groups it intersects
-                        Set<Coord> candidateRemovals = new TreeSet<>(g.getCoords());
-                        for (AbstractGroup other : entry.getValue()) {
-                            candidateRemovals.removeAll(other.getCoords());
-                        }
-                        if (removePossibility(symbolCode, candidateRemovals,
-                                new XWingEliminationReason(myPuzzle.symbolCodeToSymbol(symbolCode),
-                                        candidateRemovals,
-                                        g,
-                                        entry.getKey(), entry.getValue()))) updated = true;
-                    }
+            for (int baseFamily = 0; baseFamily < topology.getFamilyCount(); baseFamily++) {
+                for (int coverFamily = 0; coverFamily < topology.getFamilyCount(); coverFamily++) {
+                    if (baseFamily != coverFamily && isFranken(baseFamily, coverFamily) == franken &&
+                            findFish(symbolCode, baseFamily, coverFamily)) updated = true;
                 }
             }
         }
         return updated;
     }
 
-    // Get rows corresponding to indices
-    private Set<AbstractGroup> toRowGroups(Set<Integer> rowset) {
-        Set<AbstractGroup> result = new TreeSet<>();
-        for (AbstractGroup g : myPuzzle.getGroups()) {
-            if (g instanceof RowGroup) {
-                if (rowset.contains(((RowGroup) g).getRow())) {
-                    result.add(g);
-                }
-            }
+    private boolean isFranken(int baseFamily, int coverFamily) {
+        return !topology.isLineFamily(baseFamily) || !topology.isLineFamily(coverFamily);
+    }
+
+    private boolean findFish(int symbolCode, int baseFamily, int coverFamily) {
+        collectBases(symbolCode, baseFamily, coverFamily);
+
+        boolean updated = false;
+        for (int size = 2; size <= Math.min(MAX_SIZE, baseCount); size++) {
+            if (combine(symbolCode, baseFamily, coverFamily, size, 0, 0, 0)) updated = true;
         }
-        return result;
+        return updated;
     }
 
-    private Set<AbstractGroup> toColumnGroups(Set<Integer> colset) {
-        Set<AbstractGroup> result = new TreeSet<>();
-        for (AbstractGroup g : myPuzzle.getGroups()) {
-            if (g instanceof ColumnGroup) {
-                if (colset.contains(((ColumnGroup) g).getColumn())) {
-                    result.add(g);
-                }
+    // Base groups that still need the symbol and have all its candidates in
+    // at most MAX_SIZE groups of the cover family
+    private void collectBases(int symbolCode, int baseFamily, int coverFamily) {
+        baseCount = 0;
+        int[] family = topology.getFamilyGroups(baseFamily);
+        for (int member = 0; member < family.length; member++) {
+            int g = family[member];
+            int positions = candidates.getPositions(g, symbolCode);
+            if (positions == 0) continue; // placed already
+
+            int[] cells = topology.getGroupCells(g);
+            int covers = 0;
+            for (int p = positions; p != 0 && covers >= 0; p &= p - 1) {
+                int cover = topology.getFamilyMember(cells[Integer.numberOfTrailingZeros(p)], coverFamily);
+                covers = cover < 0 ? -1 : covers | 1 << cover;
+            }
+            if (covers > 0 && Integer.bitCount(covers) <= MAX_SIZE) {
+                baseMembers[baseCount] = member;
+                coverMasks[baseCount++] = covers;
             }
         }
-        return result;
     }
 
-    // Get indices of rows where given symbol is a candidate
-    private Set<Integer> getRowSet(AbstractGroup g, int symbolCode) {
-        Set<Integer> set = new TreeSet<>();
-
-        for (Coord c : g.getCoords()) {
-            if (candidatesPerCell.get(c).contains(symbolCode)) {
-                set.add(c.getY());
-            }
+    // Choose size base groups from start on, pruned when they need too many covers
+    private boolean combine(int symbolCode, int baseFamily, int coverFamily,
+                            int size, int start, int bases, int covers) {
+        int chosen = Integer.bitCount(bases);
+        if (chosen == size) {
+            return Integer.bitCount(covers) == size &&
+                    eliminateFish(symbolCode, baseFamily, coverFamily, bases, covers);
         }
 
-        return set;
+        boolean updated = false;
+        for (int i = start; i <= baseCount - (size - chosen); i++) {
+            int newCovers = covers | coverMasks[i];
+            if (Integer.bitCount(newCovers) <= size &&
+                    combine(symbolCode, baseFamily, coverFamily, size, i + 1, bases | 1 << i, newCovers)) updated = true;
+        }
+        return updated;
     }
 
-    private Set<Integer> getColSet(AbstractGroup g, int symbolCode) {
-        Set<Integer> set = new TreeSet<>();
+    // Remove the symbol from the cover groups outside of the base groups
+    private boolean eliminateFish(int symbolCode, int baseFamily, int coverFamily, int bases, int covers) {
+        int[] coverFamilyGroups = topology.getFamilyGroups(coverFamily);
 
-        for (Coord c : g.getCoords()) {
-            if (candidatesPerCell.get(c).contains(symbolCode)) {
-                set.add(c.getX());
-            }
+        int baseFamilyMask = 0;
+        for (int b = bases; b != 0; b &= b - 1) {
+            baseFamilyMask |= 1 << baseMembers[Integer.numberOfTrailingZeros(b)];
         }
 
-        return set;
+        boolean updated = false;
+        for (int c = covers; c != 0; c &= c - 1) {
+            int g = coverFamilyGroups[Integer.numberOfTrailingZeros(c)];
+            int[] cells = topology.getGroupCells(g);
+            for (int p = candidates.getPositions(g, symbolCode); p != 0; p &= p - 1) {
+                int cell = cells[Integer.numberOfTrailingZeros(p)];
+                int base = topology.getFamilyMember(cell, baseFamily);
+                if ((base < 0 || (baseFamilyMask & (1 << base)) == 0) &&
+                        removeCandidates(cell, CandidateGrid.toMask(symbolCode),
+                                symbolCode, g, coverFamily, covers, baseFamily, baseFamilyMask)) updated = true;
+            }
+        }
+        return updated;
     }
 
+    // Records are {symbol code, cover group it is removed from, cover family,
+    // cover groups in it, base family, base groups in it}
+    @Override
+    protected Explanation explain(int cell, int[] data) {
+        return new XWingEliminationReason(myPuzzle.symbolCodeToSymbol(data[0]),
+                Collections.singleton(topology.getCoord(cell)),
+                groups.get(data[1]),
+                toGroups(data[2], data[3]), toGroups(data[4], data[5]), franken);
+    }
 
-
+    private Set<AbstractGroup> toGroups(int family, int members) {
+        Set<AbstractGroup> result = new TreeSet<>();
+        for (int m = members; m != 0; m &= m - 1) {
+            result.add(groups.get(topology.getFamilyGroups(family)[Integer.numberOfTrailingZeros(m)]));
+        }
+        return result;
+    }
 }
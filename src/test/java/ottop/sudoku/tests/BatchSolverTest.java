@@ -0,0 +1,75 @@
+package ottop.sudoku.tests;
+
+import org.junit.Test;
+import ottop.sudoku.puzzle.ISudoku;
+import ottop.sudoku.puzzle.StandardSudoku;
+import ottop.sudoku.reader.SudokuReader;
+import ottop.sudoku.solver.BatchSolver;
+import ottop.sudoku.solver.BruteForceSolver;
+import ottop.sudoku.solver.SudokuSolver;
+
+import java.io.IOException;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class BatchSolverTest {
+    private static final String[] puzzles = {
+            "4.....8.5.3..........7......2.....6.....8.4......1.......6.3.7.5..2.....1.4......",
+            "52...6.........7.13...........4..8..6......5...........418.........3..2...87.....",
+            "6.....8.3.4.7.................5.4.7.3..2.....1.6.......2.....5.....8.6......1....",
+            "9.4..5...25.6..1..31......8.7...9...4..26......147....7.......2...3..8.6.4.....9."
+    };
+
+    // Hands out the puzzles above a number of times
+    private static SudokuReader repeatingReader(int times) {
+        return new SudokuReader() {
+            int n = 0;
+
+            @Override
+            public boolean hasNext() {
+                return n < times * puzzles.length;
+            }
+
+            @Override
+            public ISudoku next() {
+                int i = n++;
+                return new StandardSudoku("Puzzle " + i, puzzles[i % puzzles.length]);
+            }
+        };
+    }
+
+    @Test
+    public void testOrderedResults() throws IOException {
+        List<String> names = new ArrayList<>();
+        BatchSolver<Integer> batch = new BatchSolver<>(() -> p -> new BruteForceSolver(p).countSolutions(p, 2));
+        BatchSolver.Stats stats = batch.setParallelism(4).run(repeatingReader(50), (p, count) -> {
+            assertEquals(1, (int) count);
+            names.add(p.getName());
+        });
+
+        assertEquals(200, stats.getPuzzleCount());
+        assertEquals(200, names.size());
+        for (int i = 0; i < names.size(); i++) {
+            assertEquals("Puzzle " + i, names.get(i));
+        }
+        assertTrue(stats.getPuzzlesPerSecond() > 0);
+    }
+
+    @Test
+    public void testUnorderedResults() throws IOException {
+        Map<String, Integer> levels = new HashMap<>();
+        BatchSolver.Stats stats = BatchSolver.difficultyRater().setOrdered(false).setParallelism(3)
+                .run(repeatingReader(2), (p, level) -> levels.put(p.getName(), level));
+
+        assertEquals(8, stats.getPuzzleCount());
+        assertEquals(8, levels.size());
+
+        // the solvers kept by the threads rate as a new one does
+        for (int i = 0; i < puzzles.length; i++) {
+            int level = SudokuSolver.assessDifficulty(new StandardSudoku("Again", puzzles[i]));
+            assertEquals(level, (int) levels.get("Puzzle " + i));
+            assertEquals(level, (int) levels.get("Puzzle " + (i + puzzles.length)));
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package ottop.sudoku.tests;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ottop.sudoku.reader.SudokuFileReader;
+import ottop.sudoku.solver.BitSlicedSolver;
+import ottop.sudoku.solver.BruteForceSolver;
+import ottop.sudoku.puzzle.StandardSudoku;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BitSlicedSolverTest {
+    private static final String easy = "004300209005009001070060043006002087190007400050083000600000105003508690042910300";
+    private static final String easySolution = "864371259325849761971265843436192587198657432257483916689734125713528694542916378";
+    private static final String hard = "4.....8.5.3..........7......2.....6.....8.4......1.......6.3.7.5..2.....1.4......";
+    private static final String broken = "404300209005009001070060043006002087190007400050083000600000105003508690042910300";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testSolveAll() throws IOException {
+        // more than one batch of 64, the last one partly filled
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 70; i++) {
+            lines.add(i % 10 == 3 ? hard : i % 10 == 7 ? broken : easy);
+        }
+        Path path = folder.newFile("puzzles.csv").toPath();
+        Files.write(path, lines);
+
+        byte[] hardCells = cells(hard);
+        int[] hardSolution = new BruteForceSolver(new StandardSudoku("Hard", hard)).findSolution(hardCells);
+
+        BitSlicedSolver solver = new BitSlicedSolver();
+        List<byte[]> kept = new ArrayList<>();
+        List<int[]> solutions = new ArrayList<>();
+        long count = solver.solveAll(new SudokuFileReader(path), (givens, solution) -> {
+            kept.add(givens);
+            solutions.add(solution);
+        });
+
+        assertEquals(70, count);
+        assertEquals(56, solver.getSolvedBySingles());
+        assertEquals(7, solver.getSolvedByFallback());
+        assertEquals(7, solver.getUnsolvable());
+        for (int i = 0; i < 70; i++) {
+            // the givens are not overwritten by later batches
+            assertArrayEquals(cells(lines.get(i)), kept.get(i));
+
+            int[] solution = solutions.get(i);
+            if (i % 10 == 7) {
+                assertNull(solution);
+            } else if (i % 10 == 3) {
+                assertArrayEquals(hardSolution, solution);
+            } else {
+                for (int cell = 0; cell < 81; cell++) {
+                    assertEquals(easySolution.charAt(cell) - '0', solution[cell]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testStuckLanesKeepWhatSinglesPlaced() {
+        byte[][] boards = {cells(hard), cells(easy)};
+        BitSlicedSolver solver = new BitSlicedSolver();
+        assertEquals(2L, solver.solveSingles(boards, 2));
+        assertEquals(0L, solver.getBroken());
+
+        int[] partial = solver.getBoard(0);
+        for (int cell = 0; cell < 81; cell++) {
+            if (boards[0][cell] != 0) assertEquals(boards[0][cell], partial[cell]);
+        }
+    }
+
+    // Symbol codes of a puzzle string, '.' or '0' for empty
+    private static byte[] cells(String puzzle) {
+        byte[] cells = new byte[81];
+        for (int cell = 0; cell < 81; cell++) {
+            char c = puzzle.charAt(cell);
+            cells[cell] = c >= '1' && c <= '9' ? (byte) (c - '0') : 0;
+        }
+        return cells;
+    }
+}
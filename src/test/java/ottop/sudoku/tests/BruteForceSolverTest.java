@@ -0,0 +1,111 @@
+package ottop.sudoku.tests;
+
+import org.junit.Test;
+import ottop.sudoku.PuzzleDB;
+import ottop.sudoku.puzzle.ISudoku;
+import ottop.sudoku.puzzle.StandardSudoku;
+import ottop.sudoku.solver.BruteForceSolver;
+import ottop.sudoku.solver.SudokuSolver;
+
+import static org.junit.Assert.*;
+
+public class BruteForceSolverTest {
+
+    @Test
+    public void testHardestStandard() {
+        ISudoku p = new StandardSudoku("Hardest 1",
+                "9.4..5...25.6..1..31......8.7...9...4..26......147....7.......2...3..8.6.4.....9.");
+        String before = p.toString();
+
+        int[] solution = new BruteForceSolver(p).findSolution(p);
+        assertNotNull(solution);
+        assertEquals(81, solution.length);
+        assertEquals(before, p.toString()); // puzzle itself untouched
+
+        ISudoku solved = p.clone();
+        assertTrue(new BruteForceSolver(solved).solve(solved));
+        assertTrue(solved.isSolved());
+    }
+
+    @Test
+    public void testOtherLayouts() {
+        ISudoku nrc = PuzzleDB.NRC_5dec14.clone();
+        assertTrue(new BruteForceSolver(nrc).solve(nrc));
+        assertTrue(nrc.isSolved());
+
+        ISudoku tenByTen = PuzzleDB.puzzelbrein12_2020.clone();
+        assertTrue(new BruteForceSolver(tenByTen).solve(tenByTen));
+        assertTrue(tenByTen.isSolved());
+    }
+
+    @Test
+    public void testNoSolution() {
+        ISudoku p = new StandardSudoku("Two fives in a row",
+                "55.......",
+                ".........",
+                ".........",
+                ".........",
+                ".........",
+                ".........",
+                ".........",
+                ".........",
+                ".........");
+        assertNull(new BruteForceSolver(p).findSolution(p));
+
+        // No direct conflict but r1c9 has no candidates left
+        ISudoku q = new StandardSudoku("Stuck corner",
+                "12345678.",
+                "........9",
+                ".........",
+                ".........",
+                ".........",
+                ".........",
+                ".........",
+                ".........",
+                ".........");
+        assertNull(new BruteForceSolver(q).findSolution(q));
+    }
+
+    @Test
+    public void testCountSolutions() {
+        ISudoku p = new StandardSudoku("Hardest 1",
+                "9.4..5...25.6..1..31......8.7...9...4..26......147....7.......2...3..8.6.4.....9.");
+        BruteForceSolver bf = new BruteForceSolver(p);
+        assertEquals(1, bf.countSolutions(p, 10));
+        assertTrue(bf.hasUniqueSolution(p));
+
+        // Solver can be reused for another puzzle of the same shape
+        ISudoku empty = PuzzleDB.emptyStandardPuzzle;
+        assertEquals(2, bf.countSolutions(empty, 2));
+        assertEquals(1000, bf.countSolutions(empty, 1000));
+        assertFalse(bf.hasUniqueSolution(empty));
+
+        // Solved grid with a 6/9 rectangle cleared, both ways round fit
+        ISudoku twoWay = new StandardSudoku("Deadly pattern",
+                "123456789",
+                "456789123",
+                "789123456",
+                "231.748.5",
+                "875.123.4",
+                "694538217",
+                "317265948",
+                "542897631",
+                "968341572");
+        assertEquals(2, bf.countSolutions(twoWay, 10));
+        assertEquals(1, bf.countSolutions(twoWay, 1));
+        assertFalse(bf.hasUniqueSolution(twoWay));
+
+        ISudoku nrc = PuzzleDB.NRC_5dec14;
+        assertTrue(new BruteForceSolver(nrc).hasUniqueSolution(nrc));
+    }
+
+    @Test
+    public void testFallback() {
+        ISudoku p = new StandardSudoku("Magic tour 1",
+                "4.....8.5.3..........7......2.....6.....8.4......1.......6.3.7.5..2.....1.4......");
+
+        assertFalse(new SudokuSolver(p.clone()).solve());
+        assertTrue(new SudokuSolver(p).setBruteForceFallback().solve());
+        assertTrue(p.isSolved());
+    }
+}
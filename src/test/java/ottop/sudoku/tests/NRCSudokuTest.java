@@ -3,6 +3,7 @@ package ottop.sudoku.tests;
 import org.junit.Test;
 import ottop.sudoku.PuzzleDB;
 import ottop.sudoku.board.Coord;
+import ottop.sudoku.board.Topology;
 import ottop.sudoku.puzzle.ISudoku;
 import ottop.sudoku.puzzle.NRCSudoku;
 
@@ -28,5 +29,12 @@ public class NRCSudokuTest {
         assertEquals(20, emptyPuzzle.getBuddies(new Coord("r1c1")).size());
         assertEquals(4, emptyPuzzle.getBuddyGroups(new Coord("r2c2")).size());
         assertEquals(23, emptyPuzzle.getBuddies(new Coord("r2c2")).size());
+
+        // boxes, rows, columns and the NRC groups as families for the fish
+        Topology topology = emptyPuzzle.getTopology();
+        assertEquals(4, topology.getFamilyCount());
+        assertEquals(4, topology.getFamilyGroups(3).length);
+        assertEquals(-1, topology.getFamilyMember(emptyPuzzle.getCellIndex(new Coord("r1c1")), 3));
+        assertEquals(0, topology.getFamilyMember(emptyPuzzle.getCellIndex(new Coord("r2c2")), 3));
     }
 }
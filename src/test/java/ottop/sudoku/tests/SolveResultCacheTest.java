@@ -0,0 +1,116 @@
+package ottop.sudoku.tests;
+
+import org.junit.Test;
+import ottop.sudoku.PuzzleDB;
+import ottop.sudoku.puzzle.ISudoku;
+import ottop.sudoku.puzzle.StandardSudoku;
+import ottop.sudoku.puzzle.VariantLayout;
+import ottop.sudoku.puzzle.VariantSudoku;
+import ottop.sudoku.solver.SolveResult;
+import ottop.sudoku.solver.SolveResultCache;
+import ottop.sudoku.solver.SudokuSolver;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+public class SolveResultCacheTest {
+    // solved by logic, other tests change the puzzles in PuzzleDB
+    private final ISudoku xWings = new StandardSudoku("X-Wing",
+            ".374816.9.9..27.388..3.9....19873.6.78...2.93...9.487....295.86..81369..962748315");
+
+    @Test
+    public void testCachedByGivens() {
+        SolveResultCache cache = new SolveResultCache(10);
+        SolveResult result = cache.get(xWings);
+
+        assertEquals(SudokuSolver.assessDifficulty(xWings), result.getRating());
+        assertTrue(result.isSolvable());
+
+        // one move per empty cell
+        int moves = 0;
+        for (int count : result.getProfile().values()) moves += count;
+        assertEquals(81 - countGivens(xWings), moves);
+
+        // same givens under another name
+        ISudoku copy = xWings.clone();
+        assertSame(result, cache.get(copy));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+
+        // but not once a move is made
+        copy.doMove(copy.getTopology().getCoord(firstEmpty(copy)), copy.symbolCodeToSymbol(
+                result.getSolution()[firstEmpty(copy)]));
+        assertNull(cache.getIfPresent(copy));
+    }
+
+    @Test
+    public void testVariantLayoutsKeptApart() {
+        String cells = ".2..9.....3.4...1......56.4......8.......25.....6...4...1.84.....4.....3.8..2....";
+        VariantLayout jigsaw = VariantLayout.parse("size 9\nrows\ncolumns\nregions\n" +
+                "AAABBBCCC\nAAABBBCCC\nDAABBBCCC\nDADEEEEFF\nDDDEEEFFF\nDDGEEFFFF\nDGGHHHHII\nGGGHHHIII\nGGGHHIIII");
+        VariantLayout boxes = VariantLayout.parse("size 9\nrows\ncolumns\nboxes 3x3");
+
+        SolveResultCache cache = new SolveResultCache(10);
+        SolveResult result = cache.get(new VariantSudoku("Jigsaw", jigsaw, cells));
+        assertNull(cache.getIfPresent(new VariantSudoku("Boxes", boxes, cells)));
+
+        // the same layout written again, with a comment
+        VariantLayout again = VariantLayout.parse("# boxes\nsize 9\n\nrows\ncolumns\nboxes 3x3");
+        cache.get(new VariantSudoku("Boxes", boxes, cells));
+        assertNotNull(cache.getIfPresent(new VariantSudoku("Again", again, cells)));
+        assertSame(result, cache.getIfPresent(new VariantSudoku("Jigsaw", jigsaw, cells)));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedGoesFirst() {
+        SolveResultCache cache = new SolveResultCache(2);
+        cache.get(PuzzleDB.Trouw_535);
+        cache.get(xWings);
+        cache.get(PuzzleDB.Trouw_535);
+        cache.get(PuzzleDB.unsolvable);
+
+        assertEquals(2, cache.size());
+        assertNotNull(cache.getIfPresent(PuzzleDB.Trouw_535));
+        assertNull(cache.getIfPresent(xWings));
+        assertFalse(cache.getIfPresent(PuzzleDB.unsolvable).isSolvable());
+    }
+
+    @Test
+    public void testSaveAndLoad() throws IOException {
+        SolveResultCache cache = new SolveResultCache(10);
+        SolveResult result = cache.get(xWings);
+        cache.get(PuzzleDB.unsolvable);
+
+        Path file = Files.createTempFile("results", ".cache");
+        try {
+            cache.save(file);
+            SolveResultCache loaded = new SolveResultCache(10);
+            assertEquals(2, loaded.load(file));
+
+            SolveResult reloaded = loaded.getIfPresent(xWings);
+            assertEquals(result.getRating(), reloaded.getRating());
+            assertEquals(result.getProfile(), reloaded.getProfile());
+            assertArrayEquals(result.getSolution(), reloaded.getSolution());
+            assertNull(loaded.getIfPresent(PuzzleDB.unsolvable).getSolution());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static int countGivens(ISudoku p) {
+        int givens = 0;
+        for (int cell = 0; cell < p.getTopology().getCellCount(); cell++) {
+            if (p.getSymbolCodeAtCell(cell) != 0) givens++;
+        }
+        return givens;
+    }
+
+    private static int firstEmpty(ISudoku p) {
+        int cell = 0;
+        while (p.getSymbolCodeAtCell(cell) != 0) cell++;
+        return cell;
+    }
+}
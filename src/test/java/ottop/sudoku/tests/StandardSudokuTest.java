@@ -119,4 +119,75 @@ public class StandardSudokuTest {
         assertTrue(p.canUndo());
         assertTrue(p.isOccupied(new Coord("r4c4")));
     }
+
+    @Test
+    public void checkUndoRedo() {
+        ISudoku p = new StandardSudoku("Undo",
+                "9 1357   ",
+                "3        ",
+                " 8   6  1",
+                " 26 3 49 ",
+                "  96 81  ",
+                " 18 2 63 ",
+                "1  5   8 ",
+                "        3",
+                "   1637 5");
+        SudokuSolver s = new SudokuSolver(p);
+
+        assertEquals("[4, 7, 9]", String.valueOf(s.getCandidatesAtCell(new Coord("r6c4"))));
+
+        p.doMove(new Coord("r4c4"), "7");
+        assertEquals("[]", String.valueOf(s.getCandidatesAtCell(new Coord("r4c4"))));
+        assertEquals("[4, 9]", String.valueOf(s.getCandidatesAtCell(new Coord("r6c4"))));
+        assertEquals("[8]", String.valueOf(s.getCandidatesAtCell(new Coord("r4c9"))));
+
+        assertNull(p.undoMove());
+        assertFalse(p.isOccupied(new Coord("r4c4")));
+        assertEquals("[7]", String.valueOf(s.getCandidatesAtCell(new Coord("r4c4"))));
+        assertEquals("[4, 7, 9]", String.valueOf(s.getCandidatesAtCell(new Coord("r6c4"))));
+        assertEquals("[7, 8]", String.valueOf(s.getCandidatesAtCell(new Coord("r4c9"))));
+
+        assertEquals("r4c4=7", String.valueOf(p.redoMove()));
+        assertEquals("7", p.getSymbolAtCoordinates(new Coord("r4c4")));
+        assertEquals("[4, 9]", String.valueOf(s.getCandidatesAtCell(new Coord("r6c4"))));
+        assertFalse(p.canRedo());
+    }
+
+    @Test
+    public void checkCloneIsIndependent() {
+        ISudoku p = new StandardSudoku("Clone",
+                "9 1357   ",
+                "3        ",
+                " 8   6  1",
+                " 26 3 49 ",
+                "  96 81  ",
+                " 18 2 63 ",
+                "1  5   8 ",
+                "        3",
+                "   1637 5");
+        p.doMove(new Coord("r4c4"), "7");
+
+        ISudoku c = p.clone();
+        assertTrue(c.canUndo());
+        assertEquals(p.getGroups(), c.getGroups());
+
+        c.doMove(new Coord("r6c4"), "4");
+        c.doMove(new Coord("r1c2"), "9"); // second 9 in row 1
+        assertTrue(c.isInconsistent());
+        assertFalse(p.isInconsistent());
+        assertFalse(p.isOccupied(new Coord("r6c4")));
+        assertEquals(" ", p.getSymbolAtCoordinates(new Coord("r1c2")));
+
+        // undoing on the original leaves the copy alone
+        p.undoMove();
+        assertFalse(p.canUndo());
+        assertTrue(p.canRedo());
+        assertEquals("7", c.getSymbolAtCoordinates(new Coord("r4c4")));
+        assertFalse(c.canRedo());
+
+        assertEquals(new Coord("r6c4"), c.undoMove());
+        assertFalse(c.isInconsistent());
+        assertEquals("r1c2=9", String.valueOf(c.redoMove()));
+        assertTrue(c.isInconsistent());
+    }
 }
@@ -0,0 +1,63 @@
+package ottop.sudoku.tests;
+
+import org.junit.Test;
+import ottop.sudoku.board.Coord;
+import ottop.sudoku.puzzle.ISudoku;
+import ottop.sudoku.puzzle.Sudoku16x16;
+import ottop.sudoku.solver.BruteForceSolver;
+import ottop.sudoku.solver.SudokuSolver;
+
+import static org.junit.Assert.*;
+
+public class Sudoku16x16Test {
+    private static final String[] rows = {
+            "E.A5.0.98F.....C",
+            ".2.0..C.DBE6.3..",
+            "CD.3..BA07956...",
+            ".1.....23.....E8",
+            "1...7BD..9...64.",
+            "...C.3....4D.B01",
+            ".4D..9....6.7.C3",
+            ".5.76C....ABED.9",
+            "A3.DC59.B.8.076.",
+            "5.2.......D.1...",
+            "4B.1F....2......",
+            ".....7.D1..3A59B",
+            ".E..0.A..D5.C..6",
+            "7.089...6.B13.AD",
+            "D.1A3..B4.2859.0",
+            "2956.D.CF30..E.7"
+    };
+
+    @Test
+    public void checkCounts() {
+        ISudoku p = new Sudoku16x16("Hex", rows);
+
+        assertEquals(17, p.getSymbolCodeRange());
+        assertEquals("0", p.symbolCodeToSymbol(1));
+        assertEquals("F", p.symbolCodeToSymbol(16));
+        assertEquals("E", p.getSymbolAtCoordinates(new Coord("r1c1")));
+        assertFalse(p.isOccupied(new Coord("r16c15")));
+
+        assertEquals(48, p.getGroups().size());
+        assertEquals(16, p.getGroupsWithVisualBoundary().size());
+        assertEquals(39, p.getBuddies(new Coord("r16c16")).size());
+        assertTrue(p.getBuddies(new Coord("r1c1")).contains(new Coord("r4c4")));
+        assertFalse(p.getBuddies(new Coord("r1c1")).contains(new Coord("r5c5")));
+    }
+
+    @Test
+    public void checkSolve() {
+        ISudoku p = new Sudoku16x16("Hex", String.join("", rows));
+        int[] solution = new BruteForceSolver(p).findSolution(p);
+        assertTrue(new BruteForceSolver(p).hasUniqueSolution(p));
+
+        SudokuSolver s = new SudokuSolver(p);
+        s.setSmartest();
+        assertTrue(s.solve());
+        assertTrue(p.isSolved());
+        for (int cell = 0; cell < solution.length; cell++) {
+            assertEquals(solution[cell], p.getSymbolCodeAtCell(cell));
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package ottop.sudoku.tests;
+
+import org.junit.Test;
+import ottop.sudoku.board.Coord;
+import ottop.sudoku.puzzle.ISudoku;
+import ottop.sudoku.puzzle.Sudoku25x25;
+import ottop.sudoku.solver.BruteForceSolver;
+import ottop.sudoku.solver.SudokuSolver;
+
+import static org.junit.Assert.*;
+
+public class Sudoku25x25Test {
+    private static final String[] rows = {
+            "...B...AD.NSFGK..VEUHWOMY",
+            "..I.V...Y.ALBW.FOR.MG.P.S",
+            ".A.D...FSWCH...GJ.P...V..",
+            "G.RO..B.L.DUQTP.....NAIX.",
+            "S.T.M.G.H..JV...AWX...Q.U",
+            "...YK.CSN....EAH.D.GLT...",
+            "J..U.G.QTYR.HN.K.C.OXIBAM",
+            "....C.PEMHU.JKWYVA.RO.NQ.",
+            "..NH.WU...VML.....ISCJG.K",
+            "B..A..RDKL..CS....WN...EH",
+            "V.AJ...R.STP...WLBC...MDG",
+            "TNDLEYW...FCU.GR..Q.B...O",
+            "..PQS.F.G.W...MAD.YK.U..J",
+            "...M..DLQX..S.RP.E.F..T..",
+            "W....H.C..B..Y..I.NTAQRSL",
+            "PVXW.AM.....RFL.C.SY.B..Q",
+            "OLY..PS.WE.IAJND.KT.VMH.R",
+            ".FK...XYBOS..MV.H.REU.L..",
+            "....NF..RQPYTC..W.V.I..KX",
+            ".MH.J.KTVDXB.O..NF...E...",
+            "DO.FAV.N..IR.U.C..M..HE.T",
+            "UJSVBRYW..H.G.O.XIAL.D.PF",
+            "NR..HDA......V..Y.F.J.S.I",
+            ".YC.....J.L..BS..T.D.XWU.",
+            "LEW...Q.O..FYDTNU..J.G..C"
+    };
+
+    @Test
+    public void checkCounts() {
+        ISudoku p = new Sudoku25x25("Letters", rows);
+
+        assertEquals(26, p.getSymbolCodeRange());
+        assertEquals("Y", p.symbolCodeToSymbol(25));
+        assertEquals(75, p.getGroups().size());
+        assertEquals(64, p.getBuddies(new Coord("r13c13")).size());
+    }
+
+    @Test
+    public void checkSolve() {
+        ISudoku p = new Sudoku25x25("Letters", String.join("", rows));
+        int[] solution = new BruteForceSolver(p).findSolution(p);
+
+        SudokuSolver s = new SudokuSolver(p);
+        s.setSmartest();
+        assertTrue(s.solve());
+        assertTrue(p.isSolved());
+        for (int cell = 0; cell < solution.length; cell++) {
+            assertEquals(solution[cell], p.getSymbolCodeAtCell(cell));
+        }
+    }
+}
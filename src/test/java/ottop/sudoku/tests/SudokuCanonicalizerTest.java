@@ -0,0 +1,138 @@
+package ottop.sudoku.tests;
+
+import org.junit.Test;
+import ottop.sudoku.puzzle.ISudoku;
+import ottop.sudoku.puzzle.StandardSudoku;
+import ottop.sudoku.puzzle.SudokuCanonicalizer;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class SudokuCanonicalizerTest {
+    private static final String xWing =
+            ".374816.9.9..27.388..3.9....19873.6.78...2.93...9.487....295.86..81369..962748315";
+    private static final String[] others = {
+            "4.....8.5.3..........7......2.....6.....8.4......1.......6.3.7.5..2.....1.4......",
+            "9.4..5...25.6..1..31......8.7...9...4..26......147....7.......2...3..8.6.4.....9.",
+            "..43..2.9..5..9..1.7..6..43..6..2.8719...74...5..83...6.....1.5..35.869..4291.3..",
+            "..3.2.6..9..3.5..1..18.64....81.29..7.......8..67.82....26.95..8..2.3..9..5.1.3.."
+    };
+
+    private final SudokuCanonicalizer canonicalizer = new SudokuCanonicalizer();
+
+    private static final int[] IDENTITY = {0, 1, 2, 3, 4, 5, 6, 7, 8};
+
+    private String canonical(String puzzle) {
+        return canonicalizer.canonicalString(new StandardSudoku("Test", puzzle));
+    }
+
+    // Cell (y, x) of the result is cell (rows[y], columns[x]) of the puzzle, or
+    // (columns[x], rows[y]) when transposed, with digit d replaced by symbols[d - 1]
+    private static String transform(String puzzle, int[] rows, int[] columns, boolean transpose, int[] symbols) {
+        char[] result = new char[81];
+        for (int y = 0; y < 9; y++) {
+            for (int x = 0; x < 9; x++) {
+                char c = transpose ? puzzle.charAt(columns[x] * 9 + rows[y]) : puzzle.charAt(rows[y] * 9 + columns[x]);
+                result[y * 9 + x] = c == '.' ? '.' : (char) ('1' + symbols[c - '1']);
+            }
+        }
+        return new String(result);
+    }
+
+    private static String moveLines(String puzzle, int[] rows, int[] columns) {
+        return transform(puzzle, rows, columns, false, IDENTITY);
+    }
+
+    // Line order from a band order and the order within each band
+    private static int[] lines(int[] bands, int[][] withinBands) {
+        int[] result = new int[9];
+        for (int i = 0; i < 9; i++) result[i] = bands[i / 3] * 3 + withinBands[i / 3][i % 3];
+        return result;
+    }
+
+    @Test
+    public void testRelabeling() {
+        String canonical = canonical(xWing);
+        assertEquals(canonical, canonical(transform(xWing, IDENTITY, IDENTITY, false,
+                new int[]{4, 5, 6, 7, 8, 0, 1, 2, 3})));
+        assertEquals(canonical, canonical(transform(xWing, IDENTITY, IDENTITY, false,
+                new int[]{8, 7, 6, 5, 4, 3, 2, 1, 0})));
+    }
+
+    @Test
+    public void testBandAndStackPermutations() {
+        int[][] inOrder = {{0, 1, 2}, {0, 1, 2}, {0, 1, 2}};
+        String canonical = canonical(xWing);
+        assertEquals(canonical, canonical(moveLines(xWing, lines(new int[]{2, 0, 1}, inOrder), IDENTITY)));
+        assertEquals(canonical, canonical(moveLines(xWing, IDENTITY, lines(new int[]{1, 0, 2}, inOrder))));
+        assertEquals(canonical, canonical(moveLines(xWing,
+                lines(new int[]{1, 2, 0}, inOrder), lines(new int[]{2, 1, 0}, inOrder))));
+    }
+
+    @Test
+    public void testRowAndColumnPermutations() {
+        int[] inOrder = {0, 1, 2};
+        String canonical = canonical(xWing);
+        assertEquals(canonical, canonical(moveLines(xWing,
+                lines(inOrder, new int[][]{{1, 0, 2}, {0, 1, 2}, {2, 1, 0}}), IDENTITY)));
+        assertEquals(canonical, canonical(moveLines(xWing,
+                IDENTITY, lines(inOrder, new int[][]{{0, 2, 1}, {1, 2, 0}, {0, 1, 2}}))));
+    }
+
+    @Test
+    public void testTransposition() {
+        String canonical = canonical(xWing);
+        assertEquals(canonical, canonical(transform(xWing, IDENTITY, IDENTITY, true, IDENTITY)));
+        for (String puzzle : others) {
+            assertEquals(canonical(puzzle), canonical(transform(puzzle, IDENTITY, IDENTITY, true, IDENTITY)));
+        }
+    }
+
+    @Test
+    public void testRandomIsomorphs() {
+        Random random = new Random(42);
+        List<String> puzzles = new ArrayList<>(Arrays.asList(others));
+        puzzles.add(xWing);
+        for (String puzzle : puzzles) {
+            String canonical = canonical(puzzle);
+            for (int i = 0; i < 10; i++) {
+                String isomorph = transform(puzzle,
+                        lines(shuffle(3, random), new int[][]{shuffle(3, random), shuffle(3, random), shuffle(3, random)}),
+                        lines(shuffle(3, random), new int[][]{shuffle(3, random), shuffle(3, random), shuffle(3, random)}),
+                        random.nextBoolean(), shuffle(9, random));
+                assertEquals(isomorph, canonical, canonical(isomorph));
+            }
+        }
+    }
+
+    private static int[] shuffle(int n, Random random) {
+        List<Integer> values = new ArrayList<>();
+        for (int i = 0; i < n; i++) values.add(i);
+        Collections.shuffle(values, random);
+        return values.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    @Test
+    public void testCanonicalPuzzle() {
+        ISudoku p = new StandardSudoku("Original", xWing);
+        assertEquals(canonical(xWing), canonicalizer.canonicalString(canonicalizer.canonicalPuzzle(p)));
+        assertEquals("Original", canonicalizer.canonicalPuzzle(p).getName());
+    }
+
+    @Test
+    public void testDifferentPuzzles() {
+        Set<String> canonicals = new HashSet<>();
+        canonicals.add(canonical(xWing));
+        for (String puzzle : others) canonicals.add(canonical(puzzle));
+        assertEquals(others.length + 1, canonicals.size());
+
+        // one given less is another puzzle
+        assertNotEquals(canonical(xWing), canonical(xWing.replaceFirst("3", ".")));
+
+        // moving a row to another band generally isn't an isomorphism
+        assertNotEquals(canonical(xWing), canonical(moveLines(xWing, new int[]{3, 1, 2, 0, 4, 5, 6, 7, 8}, IDENTITY)));
+
+        assertEquals(".".repeat(81), canonical(".".repeat(81)));
+    }
+}
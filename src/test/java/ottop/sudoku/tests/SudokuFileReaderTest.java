@@ -0,0 +1,171 @@
+package ottop.sudoku.tests;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ottop.sudoku.puzzle.ISudoku;
+import ottop.sudoku.puzzle.StandardSudoku;
+import ottop.sudoku.puzzle.VariantLayout;
+import ottop.sudoku.puzzle.VariantSudoku;
+import ottop.sudoku.puzzle.XSudoku;
+import ottop.sudoku.reader.SudokuCorpusReader;
+import ottop.sudoku.reader.SudokuCorpusWriter;
+import ottop.sudoku.reader.SudokuFileReader;
+import ottop.sudoku.solver.BruteForceSolver;
+import ottop.sudoku.solver.SudokuSolver;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+public class SudokuFileReaderTest {
+    private static final String kaggleLike =
+            "quizzes,solutions\n" +
+            "004300209005009001070060043006002087190007400050083000600000105003508690042910300," +
+            "864371259325849761971265843436192587198657432257483916689734125713528694542916378\n" +
+            "# not a puzzle\r\n" +
+            "9.4..5...25.6..1..31......8.7...9...4..26......147....7.......2...3..8.6.4.....9.,x,x\r\n" +
+            "..............toolong................................................................\n" +
+            "4.....8.5.3..........7......2.....6.....8.4......1.......6.3.7.5..2.....1.4......";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private void checkFile(boolean memoryMapped) throws IOException {
+        Path path = folder.newFile("puzzles.csv").toPath();
+        Files.write(path, kaggleLike.getBytes());
+
+        SudokuFileReader reader = new SudokuFileReader(path, memoryMapped, 0);
+
+        assertTrue(reader.hasNext());
+        assertEquals(1, reader.getPuzzleNo());
+        assertEquals(0, reader.getCells()[0]);
+        assertEquals(4, reader.getCells()[2]);
+        ISudoku p = reader.next();
+        assertEquals("puzzles.csv 1", p.getName());
+        assertEquals("4", p.getSymbolAtCoordinates(p.getAllCells()[2]));
+        BruteForceSolver bf = new BruteForceSolver(p);
+        assertEquals(1, bf.countSolutions(reader.getCells(), 2));
+
+        assertTrue(reader.hasNext());
+        assertEquals(9, reader.getCells()[0]);
+        assertEquals(1, bf.countSolutions(reader.getCells(), 2));
+
+        assertTrue(reader.hasNext()); // last line without newline
+        assertEquals(3, reader.getPuzzleNo());
+        assertNotNull(bf.findSolution(reader.getCells()));
+
+        assertFalse(reader.hasNext());
+    }
+
+    @Test
+    public void testBufferedRead() throws IOException {
+        checkFile(false);
+    }
+
+    @Test
+    public void testMemoryMappedRead() throws IOException {
+        checkFile(true);
+    }
+
+    @Test
+    public void testSolutionColumn() throws IOException {
+        Path path = folder.newFile("solutions.csv").toPath();
+        Files.write(path, kaggleLike.getBytes());
+
+        SudokuFileReader reader = new SudokuFileReader(path, false, 1);
+        assertTrue(reader.hasNext());
+        assertTrue(reader.next().isSolved());
+        assertFalse(reader.hasNext());
+    }
+
+    @Test
+    public void testCorpusRoundTrip() throws IOException {
+        Path text = folder.newFile("puzzles.csv").toPath();
+        Files.write(text, kaggleLike.getBytes());
+        Path corpus = folder.getRoot().toPath().resolve("puzzles.sdkc");
+
+        assertEquals(3, SudokuCorpusWriter.convert(new SudokuFileReader(text), corpus, true, true));
+
+        SudokuFileReader original = new SudokuFileReader(text);
+        try (SudokuCorpusReader reader = new SudokuCorpusReader(corpus)) {
+            assertEquals(3, reader.size());
+            assertTrue(reader.hasSolutions() && reader.hasRatings() && reader.hasNames());
+
+            // random access, last one first
+            assertEquals("puzzles.csv 3", reader.getName(2));
+            assertEquals("4", reader.get(2).getSymbolAtCoordinates(reader.get(2).getAllCells()[0]));
+            assertEquals(SudokuSolver.assessDifficulty(reader.get(2)), reader.getRating(2));
+
+            for (int i = 0; i < 3; i++) {
+                assertTrue(reader.hasNext());
+                assertTrue(original.hasNext());
+                assertEquals(i, reader.getPosition());
+                assertArrayEquals(original.getCells(), reader.getCells(i));
+                assertEquals(original.next().toString(), reader.next().toString());
+
+                int[] solution = reader.getSolution(i);
+                assertNotNull(solution);
+                assertArrayEquals(new BruteForceSolver(reader.next()).findSolution(reader.next()), solution);
+            }
+            assertFalse(reader.hasNext());
+            assertTrue(reader.getRating(0) >= 0); // easy Kaggle puzzle
+        }
+
+        // Without extras the records are just the packed cells
+        Path bare = folder.getRoot().toPath().resolve("bare.sdkc");
+        assertEquals(3, SudokuCorpusWriter.convert(new SudokuFileReader(text), bare, false, false));
+        try (SudokuCorpusReader reader = new SudokuCorpusReader(bare)) {
+            assertNull(reader.getSolution(1));
+            assertEquals(-1, reader.getRating(1));
+            assertEquals(20 + 3 * (41 + 2 + 13) + 3 * 8, Files.size(bare));
+        }
+    }
+
+    @Test
+    public void testCorpusRejectsDamagedCells() throws IOException {
+        Path text = folder.newFile("puzzles.csv").toPath();
+        Files.write(text, kaggleLike.getBytes());
+        Path corpus = folder.getRoot().toPath().resolve("damaged.sdkc");
+        assertEquals(3, SudokuCorpusWriter.convert(new SudokuFileReader(text), corpus, false, false));
+
+        // High nibble of the first byte of the second record, cell 1
+        byte[] bytes = Files.readAllBytes(corpus);
+        bytes[20 + 41 + 2 + 13] |= (byte) 0xF0;
+        Files.write(corpus, bytes);
+
+        try (SudokuCorpusReader reader = new SudokuCorpusReader(corpus)) {
+            assertEquals(81, reader.getCells(0).length);
+            try {
+                reader.getCells(1);
+                fail("Accepted a cell of 15");
+            } catch (IllegalStateException e) {
+                assertTrue(e.getMessage().startsWith("Puzzle 1 "));
+            }
+        }
+    }
+
+    @Test
+    public void testCorpusOnlyTakesStandardPuzzles() throws IOException {
+        byte[] empty = new byte[81];
+        ISudoku[] others = {
+                new XSudoku("X", ".........", ".........", ".........", ".........", ".........",
+                        ".........", ".........", ".........", "........."),
+                new VariantSudoku("Boxes", VariantLayout.parse("size 9\nrows\ncolumns\nboxes 3x3"), empty)
+        };
+        try (SudokuCorpusWriter writer = new SudokuCorpusWriter(folder.getRoot().toPath().resolve("other.sdkc"),
+                false, false, false)) {
+            for (ISudoku p : others) {
+                try {
+                    writer.add(p, null, -1);
+                    fail("Accepted " + p.getName());
+                } catch (IllegalArgumentException e) {
+                    // expected
+                }
+            }
+            writer.add(new StandardSudoku("Standard", empty), null, -1);
+        }
+    }
+}
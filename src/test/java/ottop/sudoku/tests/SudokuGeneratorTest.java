@@ -0,0 +1,95 @@
+package ottop.sudoku.tests;
+
+import org.junit.Test;
+import ottop.sudoku.puzzle.ISudoku;
+import ottop.sudoku.reader.SudokuFileReader;
+import ottop.sudoku.solver.BruteForceSolver;
+import ottop.sudoku.solver.SudokuGenerator;
+import ottop.sudoku.solver.SudokuSolver;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+public class SudokuGeneratorTest {
+    @Test
+    public void testMinimalPuzzlesInRange() {
+        try (SudokuGenerator generator = new SudokuGenerator(4).setParallelism(2).setDifficulty(0, 5).setSeed(42)) {
+            int n = 0;
+            while (generator.hasNext()) {
+                ISudoku p = generator.next();
+                n++;
+                BruteForceSolver solver = new BruteForceSolver(p);
+                assertTrue(solver.hasUniqueSolution(p));
+                assertEquals(SudokuSolver.assessDifficulty(p), generator.getRating());
+                assertTrue(generator.getRating() >= 0 && generator.getRating() <= 5);
+
+                // every clue is needed
+                byte[] board = new byte[81];
+                for (int cell = 0; cell < 81; cell++) board[cell] = (byte) p.getSymbolCodeAtCell(cell);
+                for (int cell = 0; cell < 81; cell++) {
+                    if (board[cell] == 0) continue;
+                    byte symbolCode = board[cell];
+                    board[cell] = 0;
+                    assertTrue(solver.countSolutions(board, 2) > 1);
+                    board[cell] = symbolCode;
+                }
+            }
+            assertEquals(4, n);
+            assertTrue(generator.getAttempts() >= 4);
+        }
+    }
+
+    @Test
+    public void testEasyPuzzlesWithMoreClues() {
+        try (SudokuGenerator generator = new SudokuGenerator(5).setParallelism(2).setDifficulty(1, 2)
+                .setMinimal(false).setSeed(11)) {
+            int n = 0;
+            while (generator.hasNext()) {
+                ISudoku p = generator.next();
+                n++;
+                assertTrue(new BruteForceSolver(p).hasUniqueSolution(p));
+                assertEquals(SudokuSolver.assessDifficulty(p), generator.getRating());
+                assertTrue(generator.getRating() >= 1 && generator.getRating() <= 2);
+            }
+            assertEquals(5, n);
+        }
+    }
+
+    @Test
+    public void testGivesUp() {
+        try (SudokuGenerator generator = new SudokuGenerator(1).setParallelism(2).setDifficulty(100, 100)
+                .setMaxAttempts(3).setSeed(3)) {
+            assertTrue(generator.hasNext());
+            try {
+                generator.next();
+                fail("No puzzle is that hard");
+            } catch (IllegalStateException e) {
+                // expected
+            }
+            assertEquals(3, generator.getAttempts());
+        }
+    }
+
+    @Test
+    public void testWriteTo() throws IOException {
+        Path file = Files.createTempFile("generated", ".txt");
+        try (SudokuGenerator generator = new SudokuGenerator(3).setMinimal(false).setSeed(7)) {
+            assertEquals(3, generator.writeTo(file));
+        }
+
+        try (SudokuFileReader reader = new SudokuFileReader(file)) {
+            int n = 0;
+            while (reader.hasNext()) {
+                ISudoku p = reader.next();
+                assertTrue(new BruteForceSolver(p).hasUniqueSolution(p));
+                n++;
+            }
+            assertEquals(3, n);
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
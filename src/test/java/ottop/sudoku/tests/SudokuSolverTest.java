@@ -9,6 +9,8 @@ import ottop.sudoku.explain.Explanation;
 import ottop.sudoku.puzzle.ISudoku;
 import ottop.sudoku.puzzle.NRCSudoku;
 import ottop.sudoku.puzzle.StandardSudoku;
+import ottop.sudoku.solver.BruteForceSolver;
+import ottop.sudoku.solver.Eliminator;
 import ottop.sudoku.solver.SolveStats;
 import ottop.sudoku.solver.SudokuSolver;
 
@@ -123,7 +125,7 @@ public class SudokuSolverTest {
         solver.setSimplest().setEliminateNakedPairs();
 
         assertEquals(65, getTotalNumberOfCellsWithPencilMarks()); // empty cells remain the same
-        assertEquals(264, getTotalNumberOfPencilMarks()); // possibilities strongly reduced
+        assertEquals(262, getTotalNumberOfPencilMarks()); // possibilities strongly reduced
 
         assertEquals(10, getNakedSingles().size());
         assertEquals(13, getUniqueValues().size()); // increased after this elimination step
@@ -140,6 +142,71 @@ public class SudokuSolverTest {
         assertEquals(23, getUniqueValues().size()); // increased after this elimination step
     }
 
+    @Test
+    public void testEliminatorPipeline() {
+        int[] calls = new int[2]; // cheapest, most expensive
+        ISudoku hard = new StandardSudoku("Magic tour 33",
+                ".2.......3.5.62..9.68...3...5..........64.8.2..47..9....3.....1.....6...17.43....");
+        SudokuSolver hardSolver = new SudokuSolver(hard).setSmartest()
+                .addEliminator("first", 1, (puzzle, candidates, reasons) -> new Eliminator(puzzle, candidates, reasons) {
+                    public boolean eliminate() { calls[0]++; return false; }
+                    protected Explanation explain(int cell, int[] data) { return null; } // logs nothing
+                })
+                .addEliminator("last", 100, (puzzle, candidates, reasons) -> new Eliminator(puzzle, candidates, reasons) {
+                    public boolean eliminate() { calls[1]++; return false; }
+                    protected Explanation explain(int cell, int[] data) { return null; } // logs nothing
+                });
+
+        assertEquals(Arrays.asList("first", SudokuSolver.NAKED_GROUPS, SudokuSolver.INTERSECTION_RADIATION,
+                SudokuSolver.XWINGS, "last"), hardSolver.getEliminatorNames());
+        assertTrue(hardSolver.solve());
+
+        // Cheap techniques are tried every time, expensive ones only when all else fails
+        assertTrue(calls[0] > calls[1]);
+
+        hardSolver.removeEliminator("last").setEliminateXWings(false);
+        assertEquals(Arrays.asList("first", SudokuSolver.NAKED_GROUPS, SudokuSolver.INTERSECTION_RADIATION),
+                hardSolver.getEliminatorNames());
+    }
+
+    @Test
+    public void testEliminationReasonsOnOff() {
+        ISudoku p = PuzzleDB.extremesudoku_28_nov_2013.clone();
+        SudokuSolver smart = new SudokuSolver(p).setSmartest();
+        Coord c = new Coord("r1c2");
+        String reasons = eliminationReasons(smart, c);
+
+        // reasons logged after a move go away when it is undone
+        Map.Entry<Coord, String> move = smart.nextMove(new SolveStats());
+        p.doMove(move.getKey(), move.getValue());
+        p.undoMove();
+        assertEquals(reasons, eliminationReasons(smart, c));
+
+        // without reasons only the move at the cell (if any) is explained
+        ISudoku q = PuzzleDB.extremesudoku_28_nov_2013.clone();
+        SudokuSolver fast = new SudokuSolver(q).setSmartest().setRecordEliminationReasons(false);
+        assertTrue(fast.getEliminationReasons(c).size() <= 1);
+        assertTrue(fast.solve());
+        assertTrue(smart.solve());
+        assertEquals(p.toString(), q.toString());
+    }
+
+    @Test
+    public void testForcedChains() {
+        String hardest = "........8..3...4...9..2..6.....79.......612...6.5.2.7...8...5...1.....2.4.5.....3";
+        ISudoku p = new StandardSudoku("HardestSudokusThread-00001", hardest);
+        assertFalse(new SudokuSolver(p).setSmartest().solve());
+
+        ISudoku q = new StandardSudoku("HardestSudokusThread-00001", hardest);
+        SudokuSolver chains = new SudokuSolver(q).setSmartest().setEliminateForcedChains();
+        assertTrue(chains.solve());
+
+        int[] solution = new BruteForceSolver(q).findSolution(new StandardSudoku("Again", hardest));
+        for (int cell = 0; cell < solution.length; cell++) {
+            assertEquals(solution[cell], q.getSymbolCodeAtCell(cell));
+        }
+    }
+
     @Test
     public void testSolveSimplePuzzle() {
         solver.setSimplest();
@@ -217,6 +284,35 @@ public class SudokuSolverTest {
         assertEquals(3, getPossibleMoves().size());
     }
 
+    @Test
+    public void testFrankenFish() {
+        ISudoku p = new StandardSudoku("https://www.sudokuessentials.com/x-wing.html",
+                ".374816.9",
+                ".9..27.38",
+                "8..3.9...",
+                ".19873.6.",
+                "78...2.93",
+                "...9.487.",
+                "...295.86",
+                "..81369..",
+                "962748315");
+        solver = (new SudokuSolver(p)).setEliminateIntersectionRadiation(true).setEliminateNakedPairs(true);
+        solver.setEliminateXWings();
+        assertEquals(3, getPossibleMoves().size());
+
+        // the others from fish on boxes and lines, with the X-Wing out of the way
+        solver.setEliminateFrankenFish();
+        assertEquals(8, getPossibleMoves().size());
+
+        Explanation franken = null;
+        for (Explanation e : solver.getEliminationReasons(new Coord("r4c9"))) {
+            if (e.toString().contains("(Franken X-Wing)")) franken = e;
+        }
+        assertNotNull(franken);
+        assertTrue(franken.toString().endsWith("[Column 8, Column 9] X [Group 3, Group 9] (Franken X-Wing)"));
+        assertEquals(6, franken.getDifficulty());
+    }
+
     @Test
     public void testUnsolvable() {
         solver = new SudokuSolver(PuzzleDB.unsolvable);
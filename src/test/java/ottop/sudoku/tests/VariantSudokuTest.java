@@ -0,0 +1,118 @@
+package ottop.sudoku.tests;
+
+import org.junit.Test;
+import ottop.sudoku.board.Coord;
+import ottop.sudoku.board.Topology;
+import ottop.sudoku.puzzle.*;
+import ottop.sudoku.solver.BruteForceSolver;
+import ottop.sudoku.solver.SudokuSolver;
+
+import static org.junit.Assert.*;
+
+public class VariantSudokuTest {
+    private static final String JIGSAW = String.join("\n",
+            "# jigsaw",
+            "size 9",
+            "rows",
+            "columns",
+            "regions",
+            "AAABBBCCC",
+            "AAABBBCCC",
+            "DAABBBCCC",
+            "DADEEEEFF",
+            "DDDEEEFFF",
+            "DDGEEFFFF",
+            "DGGHHHHII",
+            "GGGHHHIII",
+            "GGGHHIIII");
+
+    private static final String NRC = String.join("\n",
+            "size 9",
+            "boxes 3x3",
+            "rows",
+            "columns",
+            "extra",
+            ".........",
+            ".AAA.BBB.",
+            ".AAA.BBB.",
+            ".AAA.BBB.",
+            ".........",
+            ".CCC.DDD.",
+            ".CCC.DDD.",
+            ".CCC.DDD.",
+            ".........");
+
+    @Test
+    public void testJigsaw() {
+        VariantLayout layout = VariantLayout.parse(JIGSAW);
+        ISudoku p = new VariantSudoku("Jigsaw", layout,
+                ".2..9.....3.4...1......56.4......8.......25.....6...4...1.84.....4.....3.8..2....");
+
+        assertEquals(27, p.getGroups().size());
+        assertEquals(9, p.getGroupsWithVisualBoundary().size());
+        assertTrue(p.getBuddies(new Coord("r1c1")).contains(new Coord("r3c2")));
+        assertFalse(p.getBuddies(new Coord("r1c1")).contains(new Coord("r2c4")));
+
+        int[] solution = new BruteForceSolver(p).findSolution(p);
+        SudokuSolver s = new SudokuSolver(p);
+        s.setSmartest();
+        assertTrue(s.solve());
+        assertTrue(p.isSolved());
+        for (int cell = 0; cell < solution.length; cell++) {
+            assertEquals(solution[cell], p.getSymbolCodeAtCell(cell));
+        }
+
+        // the tables are made once per layout
+        assertSame(p.getTopology(), new VariantSudoku("Other", layout, new byte[81]).getTopology());
+    }
+
+    @Test
+    public void testSameTablesAsHandWritten() {
+        String[] rows = {"....65...", ".......6.", "1......78", ".........", "..27.....",
+                ".3..9...1", "..6..45..", ".8...2...", "........."};
+        ISudoku nrc = new NRCSudoku("NRC", rows[0], rows[1], rows[2], rows[3], rows[4],
+                rows[5], rows[6], rows[7], rows[8]);
+        ISudoku variant = new VariantSudoku("NRC", VariantLayout.parse(NRC), rows);
+        assertSameTables(nrc.getTopology(), variant.getTopology());
+        for (Coord c : nrc.getAllCells()) {
+            assertEquals(nrc.getSymbolCodeAtCoordinates(c), variant.getSymbolCodeAtCoordinates(c));
+            assertEquals(nrc.isAtOverlay(c), variant.isAtOverlay(c));
+        }
+
+        ISudoku x = new XSudoku("X", ".........", ".........", ".........", ".........", ".........",
+                ".........", ".........", ".........", ".........");
+        ISudoku diagonal = new VariantSudoku("X", VariantLayout.parse("size 9\nrows\ncolumns\nboxes 3x3\ndiagonals"), new byte[81]);
+        assertEquals(29, x.getGroups().size());
+        assertEquals(32, x.getBuddies(new Coord("r5c5")).size());
+        assertSameTables(x.getTopology(), diagonal.getTopology());
+    }
+
+    private static void assertSameTables(Topology expected, Topology actual) {
+        assertEquals(expected.getGroupCount(), actual.getGroupCount());
+        assertEquals(expected.getFamilyCount(), actual.getFamilyCount());
+        assertEquals(expected.getIntersections().length, actual.getIntersections().length);
+        for (int cell = 0; cell < expected.getCellCount(); cell++) {
+            assertArrayEquals(expected.getCellPeers(cell), actual.getCellPeers(cell));
+        }
+    }
+
+    @Test
+    public void testBadLayouts() {
+        String[] bad = {
+                "rows",
+                "size 9\nrows\nsquares",
+                "size 9\nboxes 4x2",
+                "size 4\nrows",
+                "size 4\nsymbols ABCD\nregions\nAABB\nAABB\nCCDD\nCCDC",
+                "size 4\nsymbols ABCD\nregions\nAABB"
+        };
+        for (String layout : bad) {
+            try {
+                VariantLayout.parse(layout);
+                fail("Accepted: " + layout);
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+}